@@ -0,0 +1,111 @@
+#!/usr/bin/env python3
+"""Run the JMH suite and compare results against a baseline.
+
+    ./compare.py run results.json [extra JMH args...]   run the suite with the gc profiler
+    ./compare.py compare baseline.json results.json [--threshold 10]
+
+Typical use: run on the main branch and keep the file as baseline.json, then run on your
+branch and compare. For each benchmark and parameter set, compare prints throughput (ops/s),
+p99 latency (ms) and allocation (B/op). It exits with status 1 when any of these regresses by
+more than the threshold percentage.
+"""
+import argparse
+import json
+import os
+import subprocess
+import sys
+
+HERE = os.path.dirname(os.path.abspath(__file__))
+JAR = os.path.join(HERE, "target", "benchmarks.jar")
+
+# Seconds per unit of the OutputTimeUnit used by the benchmarks, for ops/s and ms
+UNIT_SECONDS = {"s": 1.0, "ms": 1e-3, "us": 1e-6, "ns": 1e-9}
+
+
+def run(args):
+    if not os.path.exists(JAR):
+        sys.exit("benchmarks.jar not found, build it first: mvn -B package")
+    command = ["java", "-jar", JAR, "-prof", "gc", "-rf", "json", "-rff", args.output] + args.jmh_args
+    print(" ".join(command))
+    sys.exit(subprocess.call(command))
+
+
+def load(path):
+    """(benchmark, params) -> {'ops/s', 'p99 ms', 'B/op'}"""
+    results = {}
+    for entry in json.load(open(path)):
+        params = ",".join(f"{k}={v}" for k, v in sorted((entry.get("params") or {}).items()))
+        key = (entry["benchmark"].rsplit(".", 2)[-2] + "." + entry["benchmark"].rsplit(".", 1)[-1], params)
+        metrics = results.setdefault(key, {})
+        primary = entry["primaryMetric"]
+        unit = primary["scoreUnit"].split("/")
+
+        if entry["mode"] == "thrpt":
+            metrics["ops/s"] = primary["score"] / UNIT_SECONDS[unit[1]]
+        elif entry["mode"] == "sample":
+            p99 = primary["scorePercentiles"]["99.0"]
+            metrics["p99 ms"] = p99 * UNIT_SECONDS[unit[0]] / 1e-3
+
+        alloc = entry.get("secondaryMetrics", {}).get("gc.alloc.rate.norm")
+        if alloc is not None:
+            metrics.setdefault("B/op", alloc["score"])
+    return results
+
+
+def change(metric, base, current):
+    """Percent change, signed so that positive is always worse"""
+    if base == 0:
+        return 0.0
+    delta = (current - base) / base * 100
+    return -delta if metric == "ops/s" else delta
+
+
+def compare(args):
+    baseline = load(args.baseline)
+    current = load(args.results)
+    regressions = 0
+
+    print(f"{'benchmark':<46} {'metric':<7} {'baseline':>12} {'current':>12} {'worse %':>8}")
+    for key in sorted(current):
+        if key not in baseline:
+            print(f"{key[0]:<46} (new, no baseline) {key[1]}")
+            continue
+        print(f"{key[0]}  [{key[1]}]")
+        for metric in ("ops/s", "p99 ms", "B/op"):
+            if metric not in current[key] or metric not in baseline[key]:
+                continue
+            base, now = baseline[key][metric], current[key][metric]
+            worse = change(metric, base, now)
+            flag = "  REGRESSION" if worse > args.threshold else ""
+            regressions += 1 if flag else 0
+            print(f"{'':<46} {metric:<7} {base:>12.3f} {now:>12.3f} {worse:>+8.1f}{flag}")
+
+    for key in sorted(set(baseline) - set(current)):
+        print(f"{key[0]:<46} (missing from results) {key[1]}")
+
+    print(f"\n{regressions} regression(s) over {args.threshold:g}%")
+    sys.exit(1 if regressions else 0)
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    commands = parser.add_subparsers(dest="command", required=True)
+
+    run_parser = commands.add_parser("run", help="run the suite with the gc profiler")
+    run_parser.add_argument("output")
+    run_parser.add_argument("jmh_args", nargs=argparse.REMAINDER)
+    run_parser.set_defaults(handler=run)
+
+    compare_parser = commands.add_parser("compare", help="compare results against a baseline")
+    compare_parser.add_argument("baseline")
+    compare_parser.add_argument("results")
+    compare_parser.add_argument("--threshold", type=float, default=10.0,
+                                help="percent change that counts as a regression (default 10)")
+    compare_parser.set_defaults(handler=compare)
+
+    args = parser.parse_args()
+    args.handler(args)
+
+
+if __name__ == "__main__":
+    main()
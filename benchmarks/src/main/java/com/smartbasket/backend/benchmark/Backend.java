@@ -0,0 +1,105 @@
+package com.smartbasket.backend.benchmark;
+
+import com.smartbasket.backend.cache.BarcodeIndex;
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.PriceMatrix;
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceItemPriceView;
+import com.smartbasket.backend.cache.SearchIndex;
+import com.smartbasket.backend.cache.StoreItemVersion;
+import com.smartbasket.backend.cache.SuggestionIndex;
+import com.smartbasket.backend.event.CatalogEventBus;
+import com.smartbasket.backend.service.BasketComparisonService;
+import com.smartbasket.backend.service.BasketPriceLoader;
+import com.smartbasket.backend.service.FanOut;
+import com.smartbasket.backend.service.PriceBatchWriter;
+import com.smartbasket.backend.service.PriceHistoryService;
+import com.smartbasket.backend.service.PriceUpdateScheduler;
+import com.smartbasket.backend.service.PriceUpdateService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The backend services wired by hand over an in-memory database, with the same defaults as
+ * application.yml. Warm means the resident caches (price matrix, reference data snapshot) are
+ * built, as they are a few seconds after startup; cold means every read goes to the repositories.
+ */
+final class Backend implements AutoCloseable {
+
+    final InMemoryMongoTemplate db;
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // One cache for every service that fills or bumps it, as in the Spring context
+    final BasketResultCache basketResultCache = new BasketResultCache(meterRegistry, 10_000);
+    final PriceMatrix priceMatrix;
+    final ReferenceDataCache referenceDataCache;
+    final BarcodeIndex barcodeIndex;
+    final SuggestionIndex suggestionIndex;
+    final StoreItemVersion storeItemVersion;
+    final CatalogEventBus catalogEventBus;
+    final ReferenceItemPriceView referenceItemPriceView;
+    final FanOut fanOut;
+    final LongAdder historyRows = new LongAdder();
+
+    private final List<PriceUpdateScheduler> schedulers = new ArrayList<>();
+
+    Backend(SyntheticCatalog catalog, boolean warm) {
+        this.db = new InMemoryMongoTemplate(catalog);
+        this.priceMatrix = new PriceMatrix(db, true);
+        this.barcodeIndex = new BarcodeIndex(db);
+        this.suggestionIndex = new SuggestionIndex(db);
+        this.storeItemVersion = new StoreItemVersion(
+                db, priceMatrix, barcodeIndex, new SearchIndex(db), basketResultCache);
+        this.referenceDataCache = new ReferenceDataCache(db, storeItemVersion, suggestionIndex);
+        this.catalogEventBus = new CatalogEventBus(meterRegistry, 8192, 256);
+        this.referenceItemPriceView = new ReferenceItemPriceView(
+                db, catalogEventBus, basketResultCache, false, Duration.ofMinutes(2));
+        referenceItemPriceView.subscribe();
+        this.fanOut = new FanOut("platform", 0, 1000, meterRegistry);
+        if (warm) {
+            priceMatrix.rebuild();
+            referenceDataCache.reload();
+        }
+    }
+
+    /**
+     * @param cached use the shared result cache; otherwise results are never cached
+     */
+    BasketComparisonService comparisonService(boolean cached) {
+        BasketPriceLoader loader = new BasketPriceLoader(
+                InMemoryRepositories.storeItems(db), priceMatrix, referenceItemPriceView, fanOut, 0, Duration.ofSeconds(2));
+        return new BasketComparisonService(
+                InMemoryRepositories.referenceItems(db),
+                InMemoryRepositories.stores(db),
+                InMemoryRepositories.storePrices(historyRows),
+                loader,
+                suggestionIndex,
+                cached ? basketResultCache : new BasketResultCache(meterRegistry, 0),
+                referenceDataCache,
+                fanOut,
+                meterRegistry,
+                Duration.ofSeconds(2));
+    }
+
+    PriceUpdateService priceUpdateService() {
+        PriceHistoryService history = new PriceHistoryService(
+                db, InMemoryRepositories.storePrices(historyRows), "documents", Duration.ofDays(31), Duration.ofMinutes(15));
+        PriceBatchWriter writer = new PriceBatchWriter(
+                db, history, priceMatrix, barcodeIndex, basketResultCache, catalogEventBus,
+                storeItemVersion);
+        PriceUpdateScheduler scheduler = new PriceUpdateScheduler(writer, meterRegistry, 0, 500, 10_000);
+        scheduler.start();
+        schedulers.add(scheduler);
+        return new PriceUpdateService(history, scheduler);
+    }
+
+    @Override
+    public void close() {
+        schedulers.forEach(PriceUpdateScheduler::shutdown);
+        catalogEventBus.shutdown();
+        fanOut.shutdown();
+    }
+}
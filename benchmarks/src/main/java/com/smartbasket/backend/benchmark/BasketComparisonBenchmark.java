@@ -0,0 +1,96 @@
+package com.smartbasket.backend.benchmark;
+
+import com.smartbasket.backend.dto.BasketComparisonRequest;
+import com.smartbasket.backend.dto.BasketComparisonResponse;
+import com.smartbasket.backend.service.BasketComparisonService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compareBasket over a synthetic catalog. Uncached runs draw from a pool of random baskets with
+ * the result cache disabled, so every call prices its basket; cached runs repeat a handful of
+ * baskets against an enabled cache. path=warm reads the price matrix and reference snapshot,
+ * path=cold reads through the repositories as right after startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BasketComparisonBenchmark {
+
+    private static final int BASKET_POOL = 1024;
+    private static final int CACHED_BASKETS = 16;
+
+    @Param({"10", "40"})
+    int stores;
+
+    @Param({"1000", "10000"})
+    int items;
+
+    @Param({"0.7"})
+    double coverage;
+
+    @Param({"20"})
+    int basketSize;
+
+    @Param({"warm", "cold"})
+    String path;
+
+    private Backend backend;
+    private BasketComparisonService uncached;
+    private BasketComparisonService cached;
+    private List<BasketComparisonRequest> requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(stores, items, coverage, 42);
+        backend = new Backend(catalog, "warm".equals(path));
+        uncached = backend.comparisonService(false);
+        cached = backend.comparisonService(true);
+        requests = catalog.baskets(BASKET_POOL, basketSize, 7).stream()
+                .map(ids -> BasketComparisonRequest.builder().referenceItemIds(ids).build())
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public BasketComparisonResponse compareBasket() {
+        return uncached.compareBasket(requests.get(next++ & (BASKET_POOL - 1)));
+    }
+
+    @Benchmark
+    public BasketComparisonResponse compareBasketSummaryTop3() {
+        BasketComparisonRequest request = requests.get(next++ & (BASKET_POOL - 1));
+        return uncached.compareBasket(BasketComparisonRequest.builder()
+                .referenceItemIds(request.getReferenceItemIds())
+                .summaryOnly(true)
+                .topK(3)
+                .build());
+    }
+
+    @Benchmark
+    public BasketComparisonResponse compareBasketCached() {
+        return cached.compareBasket(requests.get(next++ & (CACHED_BASKETS - 1)));
+    }
+}
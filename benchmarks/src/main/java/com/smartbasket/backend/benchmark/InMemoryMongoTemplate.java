@@ -0,0 +1,195 @@
+package com.smartbasket.backend.benchmark;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.smartbasket.backend.model.Category;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.ReferenceItemPrices;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate over in-memory collections, implementing only the operations the benchmarked
+ * code paths issue: find by _id $in, full scans (stream / findAll), bulk $set updates of
+ * store items and version stamp increments. Anything else fails loudly so a benchmark cannot silently measure a no-op.
+ * <p>
+ * Reads return copies, like documents decoded from the wire, so callers never share state
+ * with the "database".
+ */
+final class InMemoryMongoTemplate extends MongoTemplate {
+
+    final Map<String, Store> stores = new ConcurrentHashMap<>();
+    final Map<String, Category> categories = new ConcurrentHashMap<>();
+    final Map<String, ReferenceItem> referenceItems = new ConcurrentHashMap<>();
+    final Map<String, StoreItem> storeItems = new ConcurrentHashMap<>();
+    // reference_data_version stamps by _id
+    final Map<String, AtomicLong> stamps = new ConcurrentHashMap<>();
+
+    InMemoryMongoTemplate(SyntheticCatalog catalog) {
+        super(unconnectedFactory());
+        catalog.stores.forEach(store -> stores.put(store.getId(), store));
+        catalog.categories.forEach(category -> categories.put(category.getId(), category));
+        catalog.referenceItems.forEach(item -> referenceItems.put(item.getId(), item));
+        catalog.storeItems.forEach(item -> storeItems.put(item.getId(), copyOf(item)));
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        Document criteria = query.getQueryObject();
+        if (entityClass == StoreItem.class && criteria.get("_id") instanceof Document id && id.get("$in") instanceof Collection<?> ids) {
+            List<T> found = new ArrayList<>(ids.size());
+            for (Object storeItemId : ids) {
+                StoreItem item = storeItems.get(String.valueOf(storeItemId));
+                if (item != null) {
+                    found.add(entityClass.cast(copyOf(item)));
+                }
+            }
+            return found;
+        }
+        throw new UnsupportedOperationException("find " + entityClass.getSimpleName() + " " + criteria.toJson());
+    }
+
+    @Override
+    public <T> Stream<T> stream(Query query, Class<T> entityType) {
+        if (!query.getQueryObject().isEmpty()) {
+            throw new UnsupportedOperationException("stream " + entityType.getSimpleName() + " " + query.getQueryObject().toJson());
+        }
+        return findAll(entityType).stream();
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> entityClass) {
+        Collection<?> values;
+        if (entityClass == Store.class) {
+            values = stores.values();
+        } else if (entityClass == Category.class) {
+            values = categories.values();
+        } else if (entityClass == ReferenceItem.class) {
+            values = referenceItems.values();
+        } else if (entityClass == StoreItem.class) {
+            values = storeItems.values().stream().map(InMemoryMongoTemplate::copyOf).toList();
+        } else {
+            throw new UnsupportedOperationException("findAll " + entityClass.getSimpleName());
+        }
+        return values.stream().map(entityClass::cast).toList();
+    }
+
+    /**
+     * Only version stamps are read by id; none exists until something increments it, as after a fresh install
+     */
+    @Override
+    public <T> T findById(Object id, Class<T> entityClass, String collectionName) {
+        AtomicLong stamp = stamps.get(String.valueOf(id));
+        return stamp != null ? entityClass.cast(new Document("_id", id).append("stamp", stamp.get())) : null;
+    }
+
+    /**
+     * Only version stamps are modified in place: an upserting $inc of "stamp" returning the new value
+     */
+    @Override
+    public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options,
+                               Class<T> entityClass, String collectionName) {
+        Object id = query.getQueryObject().get("_id");
+        Document inc = update.getUpdateObject().get("$inc", Document.class);
+        if (entityClass != Document.class || id == null || inc == null || !inc.containsKey("stamp")) {
+            throw new UnsupportedOperationException("findAndModify " + collectionName + " " + query.getQueryObject().toJson());
+        }
+        long stamp = stamps.computeIfAbsent(String.valueOf(id), k -> new AtomicLong())
+                .addAndGet(((Number) inc.get("stamp")).longValue());
+        return entityClass.cast(new Document("_id", id).append("stamp", stamp));
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityClass) {
+        if (entityClass != StoreItem.class && entityClass != ReferenceItemPrices.class) {
+            throw new UnsupportedOperationException("bulkOps " + entityClass.getSimpleName());
+        }
+        List<Object[]> updates = new ArrayList<>();
+        return (BulkOperations) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{BulkOperations.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "updateOne" -> {
+                        updates.add(args);
+                        yield proxy;
+                    }
+                    case "execute" -> {
+                        // reference_item_prices patches are built (their cost is measured) but not applied
+                        if (entityClass == StoreItem.class) {
+                            updates.forEach(update -> applySet((Query) update[0], (UpdateDefinition) update[1]));
+                        }
+                        yield BulkWriteResult.acknowledged(0, updates.size(), 0, updates.size(), List.of(), List.of());
+                    }
+                    default -> throw new UnsupportedOperationException("bulk " + method.getName());
+                });
+    }
+
+    private void applySet(Query query, UpdateDefinition update) {
+        StoreItem item = storeItems.get(String.valueOf(query.getQueryObject().get("_id")));
+        if (item == null) {
+            return;
+        }
+        Document set = update.getUpdateObject().get("$set", Document.class);
+        set.forEach((field, value) -> {
+            switch (field) {
+                case "discountPrice" -> item.setDiscountPrice((Double) value);
+                case "originalPrice" -> item.setOriginalPrice((Double) value);
+                case "currency" -> item.setCurrency((String) value);
+                case "isPromotion" -> item.setIsPromotion((Boolean) value);
+                case "lastPriceUpdate" -> item.setLastPriceUpdate((Instant) value);
+                case "lastSeen" -> item.setLastSeen((Instant) value);
+                default -> throw new UnsupportedOperationException("$set " + field);
+            }
+        });
+    }
+
+    static StoreItem copyOf(StoreItem item) {
+        return StoreItem.builder()
+                .id(item.getId())
+                .storeId(item.getStoreId())
+                .referenceItemId(item.getReferenceItemId())
+                .name(item.getName())
+                .nameAr(item.getNameAr())
+                .brand(item.getBrand())
+                .barcode(item.getBarcode())
+                .images(item.getImages() != null ? new ArrayList<>(item.getImages()) : null)
+                .discountPrice(item.getDiscountPrice())
+                .originalPrice(item.getOriginalPrice())
+                .currency(item.getCurrency())
+                .isPromotion(item.getIsPromotion())
+                .lastPriceUpdate(item.getLastPriceUpdate())
+                .lastSeen(item.getLastSeen())
+                .build();
+    }
+
+    /**
+     * A database factory that is never asked for a database, so no client or connection is created
+     */
+    private static MongoDatabaseFactory unconnectedFactory() {
+        MongoExceptionTranslator translator = new MongoExceptionTranslator();
+        return (MongoDatabaseFactory) Proxy.newProxyInstance(InMemoryMongoTemplate.class.getClassLoader(),
+                new Class<?>[]{MongoDatabaseFactory.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getExceptionTranslator" -> translator;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryMongoTemplate.unconnectedFactory";
+                    default -> throw new UnsupportedOperationException("MongoDatabaseFactory." + method.getName());
+                });
+    }
+}
@@ -0,0 +1,106 @@
+package com.smartbasket.backend.benchmark;
+
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.model.StorePrice;
+import com.smartbasket.backend.repository.ReferenceItemRepository;
+import com.smartbasket.backend.repository.StoreItemRepository;
+import com.smartbasket.backend.repository.StorePriceRepository;
+import com.smartbasket.backend.repository.StoreRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Repository stand-ins backed by the collections of an {@link InMemoryMongoTemplate}. Each
+ * implements the finder methods the benchmarked services call; any other method throws.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static StoreRepository stores(InMemoryMongoTemplate db) {
+        return proxy(StoreRepository.class, Map.of(
+                "findByActiveTrue", args -> db.stores.values().stream().filter(Store::isActive).toList(),
+                "findAll", args -> List.copyOf(db.stores.values())));
+    }
+
+    static ReferenceItemRepository referenceItems(InMemoryMongoTemplate db) {
+        return proxy(ReferenceItemRepository.class, Map.of(
+                "findAllById", args -> {
+                    List<ReferenceItem> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        ReferenceItem item = db.referenceItems.get(String.valueOf(id));
+                        if (item != null) {
+                            found.add(item);
+                        }
+                    }
+                    return found;
+                },
+                "findAll", args -> List.copyOf(db.referenceItems.values())));
+    }
+
+    /**
+     * findForComparison scans per reference item, the way the referenceItemId index is used
+     */
+    @SuppressWarnings("unchecked")
+    static StoreItemRepository storeItems(InMemoryMongoTemplate db) {
+        return proxy(StoreItemRepository.class, Map.of(
+                "findForComparison", args -> {
+                    Set<String> storeIds = new HashSet<>((Collection<String>) args[1]);
+                    List<StoreItem> found = new ArrayList<>();
+                    for (String referenceItemId : (Collection<String>) args[0]) {
+                        for (String storeId : storeIds) {
+                            StoreItem item = db.storeItems.get(storeId + "-" + referenceItemId);
+                            if (item != null) {
+                                found.add(InMemoryMongoTemplate.copyOf(item));
+                            }
+                        }
+                    }
+                    return found;
+                }));
+    }
+
+    /**
+     * History rows are counted, not kept, so long runs do not grow the heap
+     */
+    static StorePriceRepository storePrices(LongAdder inserted) {
+        return proxy(StorePriceRepository.class, Map.of(
+                "insert", args -> {
+                    if (args[0] instanceof Iterable<?> rows) {
+                        List<StorePrice> list = new ArrayList<>();
+                        rows.forEach(row -> list.add((StorePrice) row));
+                        inserted.add(list.size());
+                        return list;
+                    }
+                    inserted.increment();
+                    return args[0];
+                }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R proxy(Class<R> repository, Map<String, Function<Object[], Object>> methods) {
+        return (R) Proxy.newProxyInstance(InMemoryRepositories.class.getClassLoader(), new Class<?>[]{repository},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> implementation = methods.get(method.getName());
+                    if (implementation != null) {
+                        return implementation.apply(args);
+                    }
+                    return switch (method.getName()) {
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "InMemory" + repository.getSimpleName();
+                        default -> throw new UnsupportedOperationException(repository.getSimpleName() + "." + method.getName());
+                    };
+                });
+    }
+}
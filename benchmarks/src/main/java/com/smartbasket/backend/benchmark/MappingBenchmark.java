@@ -0,0 +1,89 @@
+package com.smartbasket.backend.benchmark;
+
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.mapper.ReferenceItemMapper;
+import com.smartbasket.backend.mapper.StoreMapper;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.service.StoreItemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of whole listings, as done by the catalog endpoints: one operation maps
+ * every reference item, every store item of one store (names from the reference snapshot), or
+ * every store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MappingBenchmark {
+
+    @Param({"1000", "10000"})
+    int items;
+
+    private Backend backend;
+    private ReferenceDataSnapshot snapshot;
+    private final ReferenceItemMapper referenceItemMapper = new ReferenceItemMapper();
+    private final StoreMapper storeMapper = new StoreMapper();
+    private List<ReferenceItem> referenceItems;
+    private List<StoreItem> storeItems;
+    private List<Store> stores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(10, items, 0.7, 42);
+        backend = new Backend(catalog, true);
+        snapshot = backend.referenceDataCache.snapshot();
+        referenceItems = catalog.referenceItems;
+        storeItems = catalog.storeItems.stream().filter(item -> "s0".equals(item.getStoreId())).toList();
+        stores = catalog.stores;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public void referenceItemsToDto(Blackhole blackhole) {
+        for (ReferenceItem item : referenceItems) {
+            blackhole.consume(referenceItemMapper.toDto(item));
+        }
+    }
+
+    @Benchmark
+    public void storeItemsToDto(Blackhole blackhole) {
+        for (StoreItem item : storeItems) {
+            blackhole.consume(StoreItemService.toDto(item,
+                    snapshot.storeName(item.getStoreId()),
+                    snapshot.referenceItemName(item.getReferenceItemId())));
+        }
+    }
+
+    @Benchmark
+    public void storesToDto(Blackhole blackhole) {
+        for (Store store : stores) {
+            blackhole.consume(storeMapper.toDto(store));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartbasket.backend.benchmark;
+
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest;
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest.PriceEntry;
+import com.smartbasket.backend.dto.BatchPriceUpdateResponse;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.service.PriceUpdateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * batchUpdatePrices through the lane scheduler and batch writer, with the warm price matrix and
+ * barcode index patched as in production. Each entry picks one of three price points for its
+ * item, so with skipUnchanged about a third of the entries repeat the current price.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PriceUpdateBenchmark {
+
+    private static final int REQUEST_POOL = 64;
+
+    @Param({"20"})
+    int stores;
+
+    @Param({"5000"})
+    int items;
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    @Param({"false", "true"})
+    boolean skipUnchanged;
+
+    private Backend backend;
+    private PriceUpdateService service;
+    private List<BatchPriceUpdateRequest> requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(stores, items, 0.7, 42);
+        backend = new Backend(catalog, true);
+        service = backend.priceUpdateService();
+
+        Random random = new Random(11);
+        requests = new ArrayList<>(REQUEST_POOL);
+        for (int r = 0; r < REQUEST_POOL; r++) {
+            List<PriceEntry> entries = new ArrayList<>(batchSize);
+            for (int e = 0; e < batchSize; e++) {
+                StoreItem item = catalog.storeItems.get(random.nextInt(catalog.storeItems.size()));
+                double price = item.getOriginalPrice() * (1.0 - 0.1 * random.nextInt(3));
+                entries.add(PriceEntry.builder()
+                        .storeItemId(item.getId())
+                        .price(Math.round(price * 100) / 100.0)
+                        .originalPrice(item.getOriginalPrice())
+                        .currency("JOD")
+                        .isPromotion(price < item.getOriginalPrice())
+                        .build());
+            }
+            requests.add(BatchPriceUpdateRequest.builder().prices(entries).skipUnchanged(skipUnchanged).build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public BatchPriceUpdateResponse batchUpdatePrices() {
+        return service.batchUpdatePrices(requests.get(next++ & (REQUEST_POOL - 1)));
+    }
+}
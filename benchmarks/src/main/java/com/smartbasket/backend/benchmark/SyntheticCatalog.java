@@ -0,0 +1,121 @@
+package com.smartbasket.backend.benchmark;
+
+import com.smartbasket.backend.model.Category;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic catalog of stores x reference items, where each store carries a given share of
+ * the items (coverage) at random prices. The same sizes and seed always give the same catalog.
+ */
+final class SyntheticCatalog {
+
+    private static final String[] WORDS = {
+            "milk", "bread", "rice", "sugar", "olive", "oil", "tea", "coffee", "cheese", "yogurt",
+            "chicken", "tomato", "lentils", "flour", "butter", "eggs", "water", "juice", "dates", "soap"
+    };
+
+    final List<Store> stores = new ArrayList<>();
+    final List<Category> categories = new ArrayList<>();
+    final List<ReferenceItem> referenceItems = new ArrayList<>();
+    final List<StoreItem> storeItems = new ArrayList<>();
+
+    SyntheticCatalog(int storeCount, int itemCount, double coverage, long seed) {
+        Random random = new Random(seed);
+
+        for (int c = 0; c < 20; c++) {
+            categories.add(Category.builder()
+                    .id("c" + c)
+                    .name("Category " + c)
+                    .nameAr("فئة " + c)
+                    .displayOrder(c)
+                    .active(true)
+                    .build());
+        }
+
+        for (int s = 0; s < storeCount; s++) {
+            stores.add(Store.builder()
+                    .id("s" + s)
+                    .name("Store " + s)
+                    .nameAr("متجر " + s)
+                    .location("Amman")
+                    .logoUrl("https://cdn.example.com/stores/" + s + ".png")
+                    .active(true)
+                    .build());
+        }
+
+        for (int i = 0; i < itemCount; i++) {
+            Category category = categories.get(i % categories.size());
+            // One item in ten is only sold by a few stores
+            boolean restricted = i % 10 == 0 && storeCount > 3;
+            List<String> specificStoreIds = new ArrayList<>();
+            if (restricted) {
+                for (int k = 0; k < 3; k++) {
+                    specificStoreIds.add("s" + random.nextInt(storeCount));
+                }
+            }
+            referenceItems.add(ReferenceItem.builder()
+                    .id("r" + i)
+                    .name(WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i)
+                    .nameAr("صنف " + i)
+                    .categoryId(category.getId())
+                    .category(category.getName())
+                    .description("Synthetic item " + i)
+                    .images(new ArrayList<>(List.of("https://cdn.example.com/items/" + i + ".jpg")))
+                    .availableInAllStores(!restricted)
+                    .specificStoreIds(specificStoreIds)
+                    .active(i % 50 != 0)
+                    .build());
+        }
+
+        Instant now = Instant.now();
+        for (Store store : stores) {
+            for (ReferenceItem item : referenceItems) {
+                if (random.nextDouble() >= coverage) {
+                    continue;
+                }
+                double original = 0.25 + random.nextInt(2000) / 100.0;
+                boolean promotion = random.nextInt(5) == 0;
+                storeItems.add(StoreItem.builder()
+                        .id(store.getId() + "-" + item.getId())
+                        .storeId(store.getId())
+                        .referenceItemId(item.getId())
+                        .name(item.getName() + " (" + store.getName() + ")")
+                        .brand("Brand " + random.nextInt(200))
+                        .barcode(String.valueOf(6_000_000_000_000L + storeItems.size()))
+                        .images(new ArrayList<>(List.of("https://cdn.example.com/store-items/" + storeItems.size() + ".jpg")))
+                        .discountPrice(promotion ? Math.round(original * 85) / 100.0 : original)
+                        .originalPrice(original)
+                        .currency("JOD")
+                        .isPromotion(promotion)
+                        .lastPriceUpdate(now)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Random baskets of reference item ids, drawn with the given seed
+     */
+    List<List<String>> baskets(int count, int size, long seed) {
+        Random random = new Random(seed);
+        List<List<String>> baskets = new ArrayList<>(count);
+        for (int b = 0; b < count; b++) {
+            List<String> basket = new ArrayList<>(size);
+            while (basket.size() < Math.min(size, referenceItems.size())) {
+                String id = referenceItems.get(random.nextInt(referenceItems.size())).getId();
+                if (!basket.contains(id)) {
+                    basket.add(id);
+                }
+            }
+            baskets.add(basket);
+        }
+        return baskets;
+    }
+}
@@ -0,0 +1,173 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.model.StoreItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Resident barcode -> store items map for scan-to-price, holding every store's item with its
+ * current price so a scan never touches Mongo. Images are not kept.
+ * <p>
+ * Loaded after startup and kept in sync by store item writes and price updates made on this pod;
+ * {@link StoreItemVersion} rebuilds it when another pod writes. Until then {@link #isReady()} is false and callers must read from Mongo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BarcodeIndex {
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Map<String, Map<String, StoreItem>> itemsByBarcode = new ConcurrentHashMap<>();
+    // storeItemId -> barcode it is filed under, so a changed or removed barcode can be unfiled
+    private volatile Map<String, String> barcodeByItem = new ConcurrentHashMap<>();
+    // Non-null while a reload is streaming store_items; writes made meanwhile are replayed on the new index
+    private List<Consumer<BarcodeIndex>> pendingPatches;
+    private final Object reloadLock = new Object();
+
+    private volatile boolean ready = false;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Barcode index load failed, scans will read from Mongo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from store_items. Lookups keep reading the old index meanwhile.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pendingPatches = new ArrayList<>();
+            }
+            BarcodeIndex fresh = new BarcodeIndex(mongoTemplate);
+            Query query = Query.query(Criteria.where("barcode").exists(true).ne(null).ne(""));
+            query.fields().exclude("images");
+            try (Stream<StoreItem> items = mongoTemplate.stream(query, StoreItem.class)) {
+                items.forEach(fresh::put);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingPatches = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pendingPatches.forEach(patch -> patch.accept(fresh));
+                pendingPatches = null;
+                itemsByBarcode = fresh.itemsByBarcode;
+                barcodeByItem = fresh.barcodeByItem;
+                ready = true;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Store items carrying this barcode, across all stores
+     */
+    public List<StoreItem> lookup(String barcode) {
+        String key = normalize(barcode);
+        Map<String, StoreItem> items = key != null ? itemsByBarcode.get(key) : null;
+        return items != null ? List.copyOf(items.values()) : List.of();
+    }
+
+    /**
+     * File (or refile) a store item under its current barcode with its current price
+     */
+    public synchronized void put(StoreItem item) {
+        if (pendingPatches != null) {
+            StoreItem copy = copyOf(item);
+            pendingPatches.add(index -> index.put(copy));
+        }
+        String key = normalize(item.getBarcode());
+        String previous = key != null ? barcodeByItem.put(item.getId(), key) : barcodeByItem.remove(item.getId());
+        if (previous != null && !previous.equals(key)) {
+            unfile(previous, item.getId());
+        }
+        if (key != null) {
+            itemsByBarcode.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(item.getId(), copyOf(item));
+        }
+    }
+
+    public synchronized void remove(String storeItemId) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.remove(storeItemId));
+        }
+        String previous = barcodeByItem.remove(storeItemId);
+        if (previous != null) {
+            unfile(previous, storeItemId);
+        }
+    }
+
+    /**
+     * Drop store items of a reference item at the given stores (all stores when storeIds is null)
+     */
+    public synchronized void removeReferenceItem(String referenceItemId, Collection<String> storeIds) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.removeReferenceItem(referenceItemId, storeIds));
+        }
+        List<String> doomed = itemsByBarcode.values().stream()
+                .flatMap(items -> items.values().stream())
+                .filter(item -> referenceItemId.equals(item.getReferenceItemId()))
+                .filter(item -> storeIds == null || storeIds.contains(item.getStoreId()))
+                .map(StoreItem::getId)
+                .toList();
+        doomed.forEach(this::remove);
+    }
+
+    private void unfile(String barcode, String storeItemId) {
+        itemsByBarcode.computeIfPresent(barcode, (k, items) -> {
+            items.remove(storeItemId);
+            return items.isEmpty() ? null : items;
+        });
+    }
+
+    private static String normalize(String barcode) {
+        if (barcode == null || barcode.isBlank()) {
+            return null;
+        }
+        return barcode.trim();
+    }
+
+    private static StoreItem copyOf(StoreItem item) {
+        return StoreItem.builder()
+                .id(item.getId())
+                .storeId(item.getStoreId())
+                .referenceItemId(item.getReferenceItemId())
+                .name(item.getName())
+                .nameAr(item.getNameAr())
+                .brand(item.getBrand())
+                .barcode(item.getBarcode())
+                .images(null)
+                .discountPrice(item.getDiscountPrice())
+                .originalPrice(item.getOriginalPrice())
+                .currency(item.getCurrency())
+                .isPromotion(item.getIsPromotion())
+                .lastPriceUpdate(item.getLastPriceUpdate())
+                .lastSeen(item.getLastSeen())
+                .build();
+    }
+}
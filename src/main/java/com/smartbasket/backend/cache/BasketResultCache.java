@@ -0,0 +1,141 @@
+package com.smartbasket.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartbasket.backend.dto.BasketComparisonResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded (W-TinyLFU) cache of basket comparison results keyed by the canonical basket.
+ * <p>
+ * Every entry remembers the version of each reference item it was computed from and the global
+ * version. Price writes, store item changes and reference item changes bump the version of the
+ * items they touch; store changes bump the global version. A lookup only returns an entry whose
+ * versions all still match, so a cached result is never staler than a fresh computation.
+ * <p>
+ * Metrics: cache.gets/puts/evictions tagged cache=basketComparison, plus
+ * basket.comparison.cache.saved (compute seconds avoided by hits) and
+ * basket.comparison.cache.stale (entries discarded because a version moved).
+ */
+@Component
+public class BasketResultCache {
+
+    private final Cache<String, Entry> cache;
+    private final Map<String, Long> itemVersions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    private final Counter computeSaved;
+    private final Counter staleEntries;
+
+    public BasketResultCache(MeterRegistry meterRegistry,
+                             @Value("${smartbasket.basket.compare.cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "basketComparison");
+        this.computeSaved = Counter.builder("basket.comparison.cache.saved")
+                .description("Comparison compute time avoided by cache hits")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.staleEntries = Counter.builder("basket.comparison.cache.stale")
+                .description("Cached comparisons discarded because their prices or stores changed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the cached result for the basket if still current, else compute, cache and return it.
+     *
+     * @param key              canonical basket key (see {@link #key})
+     * @param referenceItemIds items the result depends on
+     */
+    public BasketComparisonResponse get(String key, Collection<String> referenceItemIds,
+                                        Supplier<BasketComparisonResponse> compute) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (entry.isCurrent(this)) {
+                computeSaved.increment(entry.computeNanos() / 1e9);
+                return entry.response();
+            }
+            cache.invalidate(key);
+            staleEntries.increment();
+        }
+
+        // Snapshot versions before computing: a write racing with the computation leaves the entry stale
+        long global = globalVersion.get();
+        List<String> ids = List.copyOf(referenceItemIds);
+        long[] versions = new long[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            versions[i] = itemVersion(ids.get(i));
+        }
+
+        long start = System.nanoTime();
+        BasketComparisonResponse response = compute.get();
+        cache.put(key, new Entry(response, global, ids, versions, System.nanoTime() - start));
+        return response;
+    }
+
+    /**
+     * Canonical key: item ids sorted, each with its quantity, plus the response shape
+     */
+    public static String key(Map<String, Integer> quantities, boolean summaryOnly, Integer topK) {
+        StringBuilder sb = new StringBuilder(summaryOnly ? "s|" : "f|");
+        sb.append(topK != null ? topK : "all").append('|');
+        quantities.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> sb.append(e.getKey()).append(':').append(e.getValue()).append(','));
+        return sb.toString();
+    }
+
+    /**
+     * Invalidate results that include any of these reference items
+     */
+    public void bumpItems(Collection<String> referenceItemIds) {
+        for (String id : referenceItemIds) {
+            bumpItem(id);
+        }
+    }
+
+    public void bumpItem(String referenceItemId) {
+        if (referenceItemId != null) {
+            itemVersions.merge(referenceItemId, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Invalidate every result (store list or store details changed)
+     */
+    public void bumpAll() {
+        globalVersion.incrementAndGet();
+    }
+
+    private long itemVersion(String referenceItemId) {
+        return itemVersions.getOrDefault(referenceItemId, 0L);
+    }
+
+    private record Entry(BasketComparisonResponse response, long globalVersion,
+                         List<String> referenceItemIds, long[] itemVersions, long computeNanos) {
+        boolean isCurrent(BasketResultCache owner) {
+            if (globalVersion != owner.globalVersion.get()) {
+                return false;
+            }
+            for (int i = 0; i < referenceItemIds.size(); i++) {
+                if (itemVersions[i] != owner.itemVersion(referenceItemIds.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.model.StoreItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Resident store x reference item price matrix used to answer basket comparisons without
+ * touching Mongo. Store and reference item ids are interned to ordinals; each cell holds the
+ * effective price, promotion flag and the store item it was taken from.
+ * <p>
+ * Built from store_items when the application starts and patched incrementally on every write
+ * made on this pod; {@link StoreItemVersion} rebuilds it when another pod writes.
+ * Until the first build finishes {@link #isReady()} is false and callers must read from Mongo.
+ * With smartbasket.price-matrix.enabled=false (the reactive tier) it is never built.
+ */
+@Slf4j
+@Component
+public class PriceMatrix {
+
+    private static final int INITIAL_ITEM_CAPACITY = 256;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Grid grid = new Grid();
+    // Non-null while a rebuild is streaming store_items; writes made meanwhile are replayed on the new grid
+    private List<Consumer<Grid>> pendingPatches;
+
+    private volatile boolean ready = false;
+
+    public PriceMatrix(MongoTemplate mongoTemplate,
+                       @Value("${smartbasket.price-matrix.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Price matrix build failed, comparisons will read from Mongo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the whole matrix from store_items. Lookups keep reading the old grid meanwhile.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingPatches = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Grid fresh = new Grid();
+        Query query = new Query();
+        query.fields()
+                .include("storeId", "referenceItemId", "name", "brand",
+                        "discountPrice", "originalPrice", "currency", "isPromotion");
+        try (Stream<StoreItem> items = mongoTemplate.stream(query, StoreItem.class)) {
+            items.forEach(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingPatches = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingPatches.forEach(patch -> patch.accept(fresh));
+            pendingPatches = null;
+            grid = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Price matrix built: {} stores x {} reference items in {} ms",
+                fresh.storeOrdinals.size(), fresh.itemOrdinals.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resolve the store item of every (store, reference item) pair that has one.
+     * Returned items only carry the fields needed for comparison, with the effective price in discountPrice.
+     *
+     * @return storeId -> (referenceItemId -> store item)
+     */
+    public Map<String, Map<String, StoreItem>> lookup(Collection<String> storeIds, Collection<String> referenceItemIds) {
+        Map<String, Map<String, StoreItem>> result = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int[] itemOrds = new int[referenceItemIds.size()];
+            String[] refIds = referenceItemIds.toArray(new String[0]);
+            for (int i = 0; i < refIds.length; i++) {
+                itemOrds[i] = grid.itemOrdinals.getOrDefault(refIds[i], -1);
+            }
+
+            for (String storeId : storeIds) {
+                Integer storeOrd = grid.storeOrdinals.get(storeId);
+                if (storeOrd == null) {
+                    continue;
+                }
+                Map<String, StoreItem> byRef = new HashMap<>();
+                for (int i = 0; i < refIds.length; i++) {
+                    if (itemOrds[i] >= 0) {
+                        StoreItem cell = grid.cell(storeOrd, itemOrds[i], storeId, refIds[i]);
+                        if (cell != null) {
+                            byRef.put(refIds[i], cell);
+                        }
+                    }
+                }
+                result.put(storeId, byRef);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Insert or patch the cell of a store item after it was created or its price changed
+     */
+    public void put(StoreItem item) {
+        if (item.getStoreId() == null || item.getReferenceItemId() == null) {
+            return;
+        }
+        StoreItem copy = copyOf(item);
+        lock.writeLock().lock();
+        try {
+            grid.put(copy);
+            if (pendingPatches != null) {
+                pendingPatches.add(g -> g.put(copy));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clear the cell of a deleted store item. If another store item exists for the same
+     * store and reference item it takes over the cell, mirroring what Mongo would return.
+     */
+    public void remove(StoreItem item) {
+        if (item.getStoreId() == null || item.getReferenceItemId() == null) {
+            return;
+        }
+        boolean cleared = clear(item.getStoreId(), item.getReferenceItemId(), item.getId());
+        if (cleared) {
+            StoreItem replacement = mongoTemplate.findOne(
+                    Query.query(Criteria.where("storeId").is(item.getStoreId())
+                            .and("referenceItemId").is(item.getReferenceItemId())),
+                    StoreItem.class);
+            if (replacement != null) {
+                put(replacement);
+            }
+        }
+    }
+
+    /**
+     * Clear cells of a reference item at the given stores (all stores when storeIds is null)
+     */
+    public void removeReferenceItem(String referenceItemId, Collection<String> storeIds) {
+        lock.writeLock().lock();
+        try {
+            grid.clearItem(referenceItemId, storeIds);
+            if (pendingPatches != null) {
+                pendingPatches.add(g -> g.clearItem(referenceItemId, storeIds));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean clear(String storeId, String referenceItemId, String storeItemId) {
+        lock.writeLock().lock();
+        try {
+            boolean cleared = grid.clear(storeId, referenceItemId, storeItemId);
+            if (pendingPatches != null) {
+                pendingPatches.add(g -> g.clear(storeId, referenceItemId, storeItemId));
+            }
+            return cleared;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static StoreItem copyOf(StoreItem item) {
+        return StoreItem.builder()
+                .id(item.getId())
+                .storeId(item.getStoreId())
+                .referenceItemId(item.getReferenceItemId())
+                .name(item.getName())
+                .brand(item.getBrand())
+                .discountPrice(item.getDiscountPrice())
+                .originalPrice(item.getOriginalPrice())
+                .currency(item.getCurrency())
+                .isPromotion(item.getIsPromotion())
+                .build();
+    }
+
+    /**
+     * Dense storage: one row per store ordinal, one column per reference item ordinal.
+     * A null storeItemId marks an empty cell; NaN price marks a store item without a usable price.
+     */
+    private static final class Grid {
+        final Map<String, Integer> storeOrdinals = new HashMap<>();
+        final Map<String, Integer> itemOrdinals = new HashMap<>();
+        int itemCapacity = INITIAL_ITEM_CAPACITY;
+        int storeCount = 0;
+
+        double[][] prices = new double[0][];
+        boolean[][] promotions = new boolean[0][];
+        String[][] storeItemIds = new String[0][];
+        String[][] names = new String[0][];
+        String[][] brands = new String[0][];
+        String[][] currencies = new String[0][];
+
+        void put(StoreItem item) {
+            int s = storeOrdinal(item.getStoreId());
+            int i = itemOrdinal(item.getReferenceItemId());
+            String current = storeItemIds[s][i];
+            if (current != null && !current.equals(item.getId())) {
+                // First store item found for a store owns the cell, same as the Mongo path picks the first match
+                return;
+            }
+
+            Double effectivePrice = item.getDiscountPrice();
+            if (effectivePrice == null || effectivePrice <= 0) {
+                effectivePrice = item.getOriginalPrice();
+            }
+            prices[s][i] = effectivePrice != null && effectivePrice > 0 ? effectivePrice : Double.NaN;
+            promotions[s][i] = item.getIsPromotion() != null && item.getIsPromotion();
+            storeItemIds[s][i] = item.getId();
+            names[s][i] = item.getName();
+            brands[s][i] = item.getBrand();
+            currencies[s][i] = item.getCurrency();
+        }
+
+        StoreItem cell(int s, int i, String storeId, String referenceItemId) {
+            if (i >= itemCapacity || storeItemIds[s][i] == null) {
+                return null;
+            }
+            double price = prices[s][i];
+            return StoreItem.builder()
+                    .id(storeItemIds[s][i])
+                    .storeId(storeId)
+                    .referenceItemId(referenceItemId)
+                    .name(names[s][i])
+                    .brand(brands[s][i])
+                    .discountPrice(Double.isNaN(price) ? null : price)
+                    .currency(currencies[s][i])
+                    .isPromotion(promotions[s][i])
+                    .build();
+        }
+
+        boolean clear(String storeId, String referenceItemId, String storeItemId) {
+            Integer s = storeOrdinals.get(storeId);
+            Integer i = itemOrdinals.get(referenceItemId);
+            if (s == null || i == null || storeItemIds[s][i] == null
+                    || (storeItemId != null && !storeItemId.equals(storeItemIds[s][i]))) {
+                return false;
+            }
+            clearCell(s, i);
+            return true;
+        }
+
+        void clearItem(String referenceItemId, Collection<String> storeIds) {
+            Integer i = itemOrdinals.get(referenceItemId);
+            if (i == null) {
+                return;
+            }
+            if (storeIds == null) {
+                for (int s = 0; s < storeCount; s++) {
+                    clearCell(s, i);
+                }
+                return;
+            }
+            for (String storeId : storeIds) {
+                Integer s = storeOrdinals.get(storeId);
+                if (s != null) {
+                    clearCell(s, i);
+                }
+            }
+        }
+
+        private void clearCell(int s, int i) {
+            prices[s][i] = Double.NaN;
+            promotions[s][i] = false;
+            storeItemIds[s][i] = null;
+            names[s][i] = null;
+            brands[s][i] = null;
+            currencies[s][i] = null;
+        }
+
+        private int storeOrdinal(String storeId) {
+            Integer existing = storeOrdinals.get(storeId);
+            if (existing != null) {
+                return existing;
+            }
+            int s = storeCount++;
+            if (s >= prices.length) {
+                int rows = Math.max(8, prices.length * 2);
+                prices = Arrays.copyOf(prices, rows);
+                promotions = Arrays.copyOf(promotions, rows);
+                storeItemIds = Arrays.copyOf(storeItemIds, rows);
+                names = Arrays.copyOf(names, rows);
+                brands = Arrays.copyOf(brands, rows);
+                currencies = Arrays.copyOf(currencies, rows);
+            }
+            prices[s] = new double[itemCapacity];
+            Arrays.fill(prices[s], Double.NaN);
+            promotions[s] = new boolean[itemCapacity];
+            storeItemIds[s] = new String[itemCapacity];
+            names[s] = new String[itemCapacity];
+            brands[s] = new String[itemCapacity];
+            currencies[s] = new String[itemCapacity];
+            storeOrdinals.put(storeId, s);
+            return s;
+        }
+
+        private int itemOrdinal(String referenceItemId) {
+            Integer existing = itemOrdinals.get(referenceItemId);
+            if (existing != null) {
+                return existing;
+            }
+            int i = itemOrdinals.size();
+            if (i >= itemCapacity) {
+                int capacity = itemCapacity * 2;
+                for (int s = 0; s < storeCount; s++) {
+                    int oldLength = prices[s].length;
+                    prices[s] = Arrays.copyOf(prices[s], capacity);
+                    Arrays.fill(prices[s], oldLength, capacity, Double.NaN);
+                    promotions[s] = Arrays.copyOf(promotions[s], capacity);
+                    storeItemIds[s] = Arrays.copyOf(storeItemIds[s], capacity);
+                    names[s] = Arrays.copyOf(names[s], capacity);
+                    brands[s] = Arrays.copyOf(brands[s], capacity);
+                    currencies[s] = Arrays.copyOf(currencies[s], capacity);
+                }
+                itemCapacity = capacity;
+            }
+            itemOrdinals.put(referenceItemId, i);
+            return i;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.model.Category;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current {@link ReferenceDataSnapshot} of stores, categories and reference items so
+ * catalog reads never touch Mongo. These collections change a few times a day.
+ * <p>
+ * Admin writes on this pod are applied copy-on-write right after they are saved. Each write also
+ * increments a shared version stamp in Mongo. Every pod polls that stamp and reloads when another
+ * pod has moved it, so all pods converge within one poll interval. Such a reload also rebuilds the
+ * caches derived from reference data (see {@link StoreItemVersion#rebuildCaches()} and
+ * {@link SuggestionIndex}) and drops cached comparisons.
+ * <p>
+ * Loaded after startup. Until then {@link #snapshot()} is null and callers must read from Mongo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+
+    private static final String VERSION_COLLECTION = "reference_data_version";
+    private static final String VERSION_ID = "reference";
+
+    private final MongoTemplate mongoTemplate;
+    private final StoreItemVersion storeItemVersion;
+    private final SuggestionIndex suggestionIndex;
+
+    private final AtomicReference<ReferenceDataSnapshot> current = new AtomicReference<>();
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Reference data load failed, catalog reads will go to Mongo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Load all three collections into a fresh snapshot. The stamp is read first, so a write that
+     * lands during the load is picked up again by the next poll.
+     */
+    public synchronized void reload() {
+        long stamp = readStamp();
+        List<Store> stores = mongoTemplate.findAll(Store.class);
+        List<Category> categories = mongoTemplate.findAll(Category.class);
+        List<ReferenceItem> items = mongoTemplate.findAll(ReferenceItem.class);
+
+        ReferenceDataSnapshot previous = current.get();
+        long version = previous != null ? previous.getVersion() + 1 : 1;
+        current.set(ReferenceDataSnapshot.of(version, stamp, stores, categories, items));
+        log.info("Reference data snapshot v{} loaded: {} stores, {} categories, {} items",
+                version, stores.size(), categories.size(), items.size());
+    }
+
+    /**
+     * Reload when another pod has changed reference data since the snapshot was taken, then
+     * rebuild the caches derived from it
+     */
+    @Scheduled(fixedDelayString = "${smartbasket.reference-data.poll-interval:5s}")
+    public void poll() {
+        ReferenceDataSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            if (readStamp() != snapshot.getStamp()) {
+                reload();
+                rebuildSuggestions();
+                storeItemVersion.rebuildCaches();
+            }
+        } catch (Exception e) {
+            log.warn("Reference data version check failed, keeping snapshot v{}: {}", snapshot.getVersion(), e.getMessage());
+        }
+    }
+
+    private void rebuildSuggestions() {
+        try {
+            suggestionIndex.reload();
+        } catch (Exception e) {
+            log.warn("Suggestion index rebuild failed, keeping the current one: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return current.get() != null;
+    }
+
+    /**
+     * The current snapshot, or null until the first load completes
+     */
+    public ReferenceDataSnapshot snapshot() {
+        return current.get();
+    }
+
+    public void putStore(Store store) {
+        apply(snapshot -> snapshot.withStore(store));
+    }
+
+    public void removeStore(String storeId) {
+        apply(snapshot -> snapshot.withoutStore(storeId));
+    }
+
+    public void putCategory(Category category) {
+        apply(snapshot -> snapshot.withCategory(category));
+    }
+
+    public void removeCategory(String categoryId) {
+        apply(snapshot -> snapshot.withoutCategory(categoryId));
+    }
+
+    public void putReferenceItem(ReferenceItem item) {
+        apply(snapshot -> snapshot.withReferenceItem(item));
+    }
+
+    public void removeReferenceItem(String referenceItemId) {
+        apply(snapshot -> snapshot.withoutReferenceItem(referenceItemId));
+    }
+
+    /**
+     * Swap in the changed snapshot and announce the write to other pods. When the stamp moved by
+     * more than this write, another pod wrote too and the next poll reloads.
+     */
+    private synchronized void apply(UnaryOperator<ReferenceDataSnapshot> change) {
+        ReferenceDataSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            snapshot = change.apply(snapshot);
+            current.set(snapshot);
+        }
+        try {
+            long stamp = incrementStamp();
+            if (snapshot != null && stamp == snapshot.getStamp() + 1) {
+                current.set(snapshot.withStamp(stamp));
+            }
+        } catch (Exception e) {
+            log.warn("Reference data version stamp not updated, other pods will not see this change until they reload: {}",
+                    e.getMessage());
+        }
+    }
+
+    private long readStamp() {
+        Document stamp = mongoTemplate.findById(VERSION_ID, Document.class, VERSION_COLLECTION);
+        return stamp != null ? stamp.get("stamp", Number.class).longValue() : 0L;
+    }
+
+    private long incrementStamp() {
+        Document stamp = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(VERSION_ID)),
+                new Update().inc("stamp", 1L),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class,
+                VERSION_COLLECTION);
+        return stamp.get("stamp", Number.class).longValue();
+    }
+}
@@ -0,0 +1,198 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.model.Category;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable copy of stores, categories and reference items with the lookups read paths need.
+ * Never modified after construction: changes produce a new snapshot (see the with/without
+ * methods) that {@link ReferenceDataCache} swaps in atomically, so a reader always sees one
+ * consistent version. The entities are shared between snapshots and must be treated as read-only.
+ */
+public final class ReferenceDataSnapshot {
+
+    private final long version;
+    // Value of the shared Mongo version stamp this snapshot is known to reflect
+    private final long stamp;
+
+    private final Map<String, Store> storesById;
+    private final List<Store> activeStores;
+    private final Map<String, Category> categoriesById;
+    private final List<Category> categories;
+    private final List<Category> activeCategories;
+    private final Map<String, ReferenceItem> itemsById;
+    private final Map<String, List<ReferenceItem>> itemsByCategory;
+
+    private ReferenceDataSnapshot(long version, long stamp, Map<String, Store> storesById,
+                                  Map<String, Category> categoriesById, Map<String, ReferenceItem> itemsById) {
+        this.version = version;
+        this.stamp = stamp;
+        this.storesById = Collections.unmodifiableMap(storesById);
+        this.categoriesById = Collections.unmodifiableMap(categoriesById);
+        this.itemsById = Collections.unmodifiableMap(itemsById);
+
+        this.activeStores = storesById.values().stream().filter(Store::isActive).toList();
+        // Same order as the displayOrder queries: stable, so ties keep load order
+        this.categories = categoriesById.values().stream()
+                .sorted(Comparator.comparingInt(Category::getDisplayOrder))
+                .toList();
+        this.activeCategories = categories.stream().filter(Category::isActive).toList();
+
+        Map<String, List<ReferenceItem>> byCategory = new HashMap<>();
+        for (ReferenceItem item : itemsById.values()) {
+            if (item.getCategoryId() != null) {
+                byCategory.computeIfAbsent(item.getCategoryId(), k -> new ArrayList<>()).add(item);
+            }
+        }
+        byCategory.replaceAll((k, items) -> List.copyOf(items));
+        this.itemsByCategory = byCategory;
+    }
+
+    static ReferenceDataSnapshot of(long version, long stamp, Collection<Store> stores,
+                                    Collection<Category> categories, Collection<ReferenceItem> items) {
+        Map<String, Store> storesById = new LinkedHashMap<>();
+        stores.forEach(store -> storesById.put(store.getId(), store));
+        Map<String, Category> categoriesById = new LinkedHashMap<>();
+        categories.forEach(category -> categoriesById.put(category.getId(), category));
+        Map<String, ReferenceItem> itemsById = new LinkedHashMap<>();
+        items.forEach(item -> itemsById.put(item.getId(), item));
+        return new ReferenceDataSnapshot(version, stamp, storesById, categoriesById, itemsById);
+    }
+
+    /**
+     * Local generation, incremented on every swap
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    long getStamp() {
+        return stamp;
+    }
+
+    public Collection<Store> stores() {
+        return storesById.values();
+    }
+
+    public List<Store> activeStores() {
+        return activeStores;
+    }
+
+    public Store store(String id) {
+        return id != null ? storesById.get(id) : null;
+    }
+
+    public String storeName(String storeId) {
+        Store store = store(storeId);
+        return store != null ? store.getName() : null;
+    }
+
+    /**
+     * All categories by display order
+     */
+    public List<Category> categories() {
+        return categories;
+    }
+
+    public List<Category> activeCategories() {
+        return activeCategories;
+    }
+
+    public Category category(String id) {
+        return id != null ? categoriesById.get(id) : null;
+    }
+
+    public Collection<ReferenceItem> referenceItems() {
+        return itemsById.values();
+    }
+
+    public ReferenceItem referenceItem(String id) {
+        return id != null ? itemsById.get(id) : null;
+    }
+
+    /**
+     * The reference items with these ids, in id order; unknown ids are skipped
+     */
+    public List<ReferenceItem> referenceItems(Collection<String> ids) {
+        List<ReferenceItem> items = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            ReferenceItem item = referenceItem(id);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    public String referenceItemName(String referenceItemId) {
+        ReferenceItem item = referenceItem(referenceItemId);
+        return item != null ? item.getName() : null;
+    }
+
+    public List<ReferenceItem> referenceItemsInCategory(String categoryId) {
+        return itemsByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    ReferenceDataSnapshot withStamp(long newStamp) {
+        return new ReferenceDataSnapshot(version, newStamp, storesById, categoriesById, itemsById);
+    }
+
+    ReferenceDataSnapshot withStore(Store store) {
+        return copy(stores -> stores.put(store.getId(), store), null, null);
+    }
+
+    ReferenceDataSnapshot withoutStore(String storeId) {
+        return copy(stores -> stores.remove(storeId), null, null);
+    }
+
+    ReferenceDataSnapshot withCategory(Category category) {
+        return copy(null, categories -> categories.put(category.getId(), category), null);
+    }
+
+    ReferenceDataSnapshot withoutCategory(String categoryId) {
+        return copy(null, categories -> categories.remove(categoryId), null);
+    }
+
+    ReferenceDataSnapshot withReferenceItem(ReferenceItem item) {
+        return copy(null, null, items -> items.put(item.getId(), item));
+    }
+
+    ReferenceDataSnapshot withoutReferenceItem(String referenceItemId) {
+        return copy(null, null, items -> items.remove(referenceItemId));
+    }
+
+    /**
+     * Copy-on-write: only the changed map is copied, the others are shared
+     */
+    private ReferenceDataSnapshot copy(Consumer<Map<String, Store>> storeChange,
+                                       Consumer<Map<String, Category>> categoryChange,
+                                       Consumer<Map<String, ReferenceItem>> itemChange) {
+        Map<String, Store> stores = storesById;
+        if (storeChange != null) {
+            stores = new LinkedHashMap<>(storesById);
+            storeChange.accept(stores);
+        }
+        Map<String, Category> categories = categoriesById;
+        if (categoryChange != null) {
+            categories = new LinkedHashMap<>(categoriesById);
+            categoryChange.accept(categories);
+        }
+        Map<String, ReferenceItem> items = itemsById;
+        if (itemChange != null) {
+            items = new LinkedHashMap<>(itemsById);
+            itemChange.accept(items);
+        }
+        return new ReferenceDataSnapshot(version + 1, stamp, stores, categories, items);
+    }
+}
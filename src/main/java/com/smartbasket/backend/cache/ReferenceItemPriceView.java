@@ -0,0 +1,435 @@
+package com.smartbasket.backend.cache;
+
+import com.mongodb.client.result.UpdateResult;
+import com.smartbasket.backend.event.CatalogEvent;
+import com.smartbasket.backend.event.CatalogEventBus;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.ReferenceItemPrices;
+import com.smartbasket.backend.model.StoreItem;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Materialized reference_item_prices view: one {@link ReferenceItemPrices} document per reference
+ * item, so a comparison that cannot use the {@link PriceMatrix} reads one small document per basket
+ * item instead of resolving store items and re-deriving prices and availability.
+ * <p>
+ * Maintained incrementally from the {@link CatalogEventBus}: each batch of price events patches
+ * the affected offers in place with one bulk, store item and reference item events recompute
+ * that item's document (once per batch). Cached comparisons of the affected items are dropped
+ * after the batch is applied, so none is recomputed from the view before it caught up.
+ * <p>
+ * The view is built once and then kept current by every pod applying its own events. A marker in
+ * reference_data_version says it is built; every pod checks it periodically and stops serving
+ * the view while it is missing. The marker is removed, and the view rebuilt, when an incremental
+ * write fails on any pod, or when a pod stopped without handling all of its events: each pod
+ * keeps a heartbeat there, removes it on a clean shutdown once its events are drained, and a pod
+ * whose heartbeat goes stale is presumed to have lost events in a crash.
+ */
+@Slf4j
+@Component
+public class ReferenceItemPriceView {
+
+    private static final String VERSION_COLLECTION = "reference_data_version";
+    private static final String BUILT_ID = "reference_item_prices";
+    private static final String WRITERS_ID = "reference_item_prices_writers";
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(5);
+    private static final String DEFAULT_CURRENCY = "JOD";
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CatalogEventBus catalogEventBus;
+    private final BasketResultCache basketResultCache;
+    private final boolean rebuildOnStart;
+    private final Duration writerTimeout;
+    // Heartbeat field of this process in the writers document
+    private final String writerId = UUID.randomUUID().toString();
+
+    // Non-null while a rebuild runs: reference items written meanwhile, recomputed once it finishes
+    private volatile Set<String> touchedDuringRebuild;
+    private volatile boolean ready = false;
+    private volatile boolean started = false;
+    private volatile boolean registered = false;
+    private volatile boolean needsRebuild = false;
+
+    public ReferenceItemPriceView(MongoTemplate mongoTemplate,
+                                  CatalogEventBus catalogEventBus,
+                                  BasketResultCache basketResultCache,
+                                  @Value("${smartbasket.reference-item-prices.rebuild-on-start:false}") boolean rebuildOnStart,
+                                  @Value("${smartbasket.reference-item-prices.writer-timeout:2m}") Duration writerTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalogEventBus = catalogEventBus;
+        this.basketResultCache = basketResultCache;
+        this.rebuildOnStart = rebuildOnStart;
+        this.writerTimeout = writerTimeout;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        catalogEventBus.subscribe("referenceItemPrices", this::onEvents);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            heartbeat();
+            if (rebuildOnStart || mongoTemplate.findById(BUILT_ID, Document.class, VERSION_COLLECTION) == null) {
+                rebuild();
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.warn("reference_item_prices build failed, comparisons will read store items: {}", e.getMessage());
+        } finally {
+            started = true;
+        }
+    }
+
+    /**
+     * Refresh this pod's heartbeat, rebuild when a write failed here or another pod stopped
+     * without draining its events, and follow the built marker
+     */
+    @Scheduled(fixedDelayString = "${smartbasket.reference-item-prices.check-interval:30s}")
+    public void check() {
+        if (!started) {
+            return;
+        }
+        try {
+            heartbeat();
+            reapStaleWriters();
+            if (needsRebuild) {
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(BUILT_ID)), VERSION_COLLECTION);
+                ready = false;
+                rebuild();
+                return;
+            }
+            boolean built = mongoTemplate.findById(BUILT_ID, Document.class, VERSION_COLLECTION) != null;
+            if (ready && !built) {
+                log.warn("reference_item_prices was marked unbuilt, comparisons will read store items until it is rebuilt");
+            }
+            ready = built;
+        } catch (Exception e) {
+            log.warn("reference_item_prices check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop this pod's heartbeat once its events are applied, so no other pod rebuilds the view for it
+     */
+    @PreDestroy
+    public void unregister() {
+        if (!registered) {
+            return;
+        }
+        if (!catalogEventBus.awaitDrained(DRAIN_TIMEOUT)) {
+            log.warn("Catalog events still pending at shutdown, reference_item_prices will be rebuilt by another pod");
+            return;
+        }
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(WRITERS_ID)),
+                    new Update().unset(writerId), VERSION_COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("reference_item_prices heartbeat not removed, another pod will rebuild the view: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Recompute every document from store_items and reference_items, then drop documents of
+     * reference items that no longer exist
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        needsRebuild = false;
+        Instant startedAt = Instant.now();
+        touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+        try {
+            Query referenceQuery = new Query();
+            referenceQuery.fields().include("availableInAllStores", "specificStoreIds");
+            Map<String, ReferenceItem> referenceItems = new HashMap<>();
+            for (ReferenceItem item : mongoTemplate.find(referenceQuery, ReferenceItem.class)) {
+                referenceItems.put(item.getId(), item);
+            }
+
+            Map<String, List<ReferenceItemPrices.Offer>> offers = new HashMap<>();
+            referenceItems.keySet().forEach(id -> offers.put(id, new ArrayList<>()));
+            try (Stream<StoreItem> items = mongoTemplate.stream(storeItemQuery(new Query()), StoreItem.class)) {
+                items.forEach(item -> {
+                    ReferenceItem referenceItem = referenceItems.get(item.getReferenceItemId());
+                    if (referenceItem != null && isAssigned(referenceItem, item.getStoreId())) {
+                        offers.get(referenceItem.getId()).add(offerOf(item));
+                    }
+                });
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReferenceItemPrices.class);
+            int pending = 0;
+            for (Map.Entry<String, List<ReferenceItemPrices.Offer>> entry : offers.entrySet()) {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(entry.getKey())),
+                        new ReferenceItemPrices(entry.getKey(), entry.getValue(), Instant.now()),
+                        FindAndReplaceOptions.options().upsert());
+                if (++pending == WRITE_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReferenceItemPrices.class);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                bulk.execute();
+            }
+            mongoTemplate.remove(Query.query(Criteria.where("updatedAt").lt(startedAt)), ReferenceItemPrices.class);
+
+            // Writes that raced with the scan may have been overwritten above
+            Set<String> touched = touchedDuringRebuild;
+            touchedDuringRebuild = null;
+            touched.forEach(this::refresh);
+
+            mongoTemplate.save(new Document("_id", BUILT_ID).append("builtAt", Instant.now()), VERSION_COLLECTION);
+            ready = true;
+            log.info("reference_item_prices built: {} reference items in {} ms",
+                    offers.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            needsRebuild = true;
+            throw e;
+        } finally {
+            touchedDuringRebuild = null;
+        }
+    }
+
+    /**
+     * Offers of the given reference items at the given stores, as comparison store items
+     * (effective price in discountPrice, like {@link PriceMatrix#lookup})
+     *
+     * @return storeId -> (referenceItemId -> store item)
+     */
+    public Map<String, Map<String, StoreItem>> lookup(Collection<String> storeIds, Collection<String> referenceItemIds) {
+        Set<String> stores = new HashSet<>(storeIds);
+        Map<String, Map<String, StoreItem>> result = new HashMap<>();
+        Query query = Query.query(Criteria.where("_id").in(referenceItemIds));
+        query.fields().include("offers");
+        for (ReferenceItemPrices prices : mongoTemplate.find(query, ReferenceItemPrices.class)) {
+            for (ReferenceItemPrices.Offer offer : prices.getOffers()) {
+                if (!stores.contains(offer.getStoreId())) {
+                    continue;
+                }
+                result.computeIfAbsent(offer.getStoreId(), k -> new HashMap<>())
+                        .putIfAbsent(prices.getId(), StoreItem.builder()
+                                .id(offer.getStoreItemId())
+                                .storeId(offer.getStoreId())
+                                .referenceItemId(prices.getId())
+                                .name(offer.getName())
+                                .brand(offer.getBrand())
+                                .discountPrice(offer.getPrice())
+                                .currency(offer.getCurrency())
+                                .isPromotion(offer.isPromo())
+                                .build());
+            }
+        }
+        return result;
+    }
+
+    private void onEvents(List<CatalogEvent> events) {
+        List<StoreItem> repriced = new ArrayList<>();
+        Set<String> changed = new LinkedHashSet<>();
+        Set<String> affected = new HashSet<>();
+        for (CatalogEvent event : events) {
+            switch (event.type()) {
+                case PRICE_CHANGED -> {
+                    repriced.add(event.storeItem());
+                    affected.add(event.referenceItemId());
+                }
+                case STORE_ITEM_SAVED, STORE_ITEM_DELETED, REFERENCE_ITEM_SAVED, REFERENCE_ITEM_DELETED ->
+                        changed.add(event.referenceItemId());
+                default -> {
+                }
+            }
+        }
+        // Recomputed documents read the current store items, so they also cover earlier price events
+        updatePrices(repriced);
+        changed.forEach(this::refresh);
+        // The writer bumped these already, but a comparison may have re-read the view before it caught up
+        affected.addAll(changed);
+        basketResultCache.bumpItems(affected);
+    }
+
+    /**
+     * Patch the offers of store items whose price was written, one bulk round trip. An offer is
+     * only patched with a newer price than it holds, so pods applying their events in a different
+     * order than the writes landed in store_items still end with the latest price.
+     */
+    private void updatePrices(Collection<StoreItem> storeItems) {
+        if (storeItems.isEmpty()) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReferenceItemPrices.class);
+            for (StoreItem item : storeItems) {
+                ReferenceItemPrices.Offer offer = offerOf(item);
+                Criteria match = Criteria.where("storeItemId").is(item.getId());
+                if (item.getLastPriceUpdate() != null) {
+                    match.orOperator(
+                            Criteria.where("lastPriceUpdate").is(null),
+                            Criteria.where("lastPriceUpdate").lt(item.getLastPriceUpdate()));
+                }
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(item.getReferenceItemId())
+                                .and("offers").elemMatch(match)),
+                        new Update()
+                                .set("offers.$.price", offer.getPrice())
+                                .set("offers.$.currency", offer.getCurrency())
+                                .set("offers.$.promo", offer.isPromo())
+                                .set("offers.$.lastPriceUpdate", offer.getLastPriceUpdate())
+                                .set("updatedAt", now));
+                touched(item.getReferenceItemId());
+            }
+            bulk.execute();
+        } catch (RuntimeException e) {
+            invalidate(e);
+        }
+    }
+
+    /**
+     * Recompute the document of a reference item after its store items or availability changed.
+     * A deleted reference item loses its document.
+     */
+    private void refresh(String referenceItemId) {
+        Query referenceQuery = Query.query(Criteria.where("_id").is(referenceItemId));
+        referenceQuery.fields().include("availableInAllStores", "specificStoreIds");
+        try {
+            refresh(mongoTemplate.findOne(referenceQuery, ReferenceItem.class), referenceItemId);
+        } catch (RuntimeException e) {
+            invalidate(e);
+        }
+    }
+
+    private void refresh(ReferenceItem referenceItem, String referenceItemId) {
+        touched(referenceItemId);
+        if (referenceItem == null) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(referenceItemId)), ReferenceItemPrices.class);
+            return;
+        }
+        List<ReferenceItemPrices.Offer> offers = new ArrayList<>();
+        for (StoreItem item : mongoTemplate.find(
+                storeItemQuery(Query.query(Criteria.where("referenceItemId").is(referenceItemId))), StoreItem.class)) {
+            if (isAssigned(referenceItem, item.getStoreId())) {
+                offers.add(offerOf(item));
+            }
+        }
+        mongoTemplate.save(new ReferenceItemPrices(referenceItemId, offers, Instant.now()));
+    }
+
+    private void touched(String referenceItemId) {
+        Set<String> touched = touchedDuringRebuild;
+        if (touched != null && referenceItemId != null) {
+            touched.add(referenceItemId);
+        }
+    }
+
+    /**
+     * A missed write leaves the view stale: stop serving it on every pod and rebuild it
+     */
+    private void invalidate(RuntimeException e) {
+        ready = false;
+        needsRebuild = true;
+        log.warn("reference_item_prices update failed, comparisons will read store items until it is rebuilt: {}",
+                e.getMessage());
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(BUILT_ID)), VERSION_COLLECTION);
+        } catch (RuntimeException ignored) {
+            // The next check removes it before rebuilding
+        }
+    }
+
+    private void heartbeat() {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(WRITERS_ID)),
+                new Update().set(writerId, new Date()), VERSION_COLLECTION);
+        registered = true;
+    }
+
+    /**
+     * Remove heartbeats older than the writer timeout. The pod that removes one rebuilds the view,
+     * since that writer may have died with events still in its ring.
+     */
+    private void reapStaleWriters() {
+        Document writers = mongoTemplate.findById(WRITERS_ID, Document.class, VERSION_COLLECTION);
+        if (writers == null) {
+            return;
+        }
+        Date cutoff = Date.from(Instant.now().minus(writerTimeout));
+        for (Map.Entry<String, Object> writer : writers.entrySet()) {
+            if (writer.getKey().equals("_id") || writer.getKey().equals(writerId)
+                    || !(writer.getValue() instanceof Date seen) || !seen.before(cutoff)) {
+                continue;
+            }
+            UpdateResult result = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(WRITERS_ID).and(writer.getKey()).is(seen)),
+                    new Update().unset(writer.getKey()), VERSION_COLLECTION);
+            if (result.getModifiedCount() > 0) {
+                log.warn("Pod {} stopped without draining its catalog events, rebuilding reference_item_prices",
+                        writer.getKey());
+                needsRebuild = true;
+            }
+        }
+    }
+
+    private static Query storeItemQuery(Query query) {
+        query.fields().include("storeId", "referenceItemId", "name", "brand",
+                "discountPrice", "originalPrice", "currency", "isPromotion", "lastPriceUpdate");
+        return query;
+    }
+
+    private static boolean isAssigned(ReferenceItem referenceItem, String storeId) {
+        return referenceItem.isAvailableInAllStores() ||
+                (referenceItem.getSpecificStoreIds() != null && referenceItem.getSpecificStoreIds().contains(storeId));
+    }
+
+    private static ReferenceItemPrices.Offer offerOf(StoreItem item) {
+        Double price = item.getDiscountPrice();
+        if (price == null || price <= 0) {
+            price = item.getOriginalPrice();
+        }
+        return ReferenceItemPrices.Offer.builder()
+                .storeId(item.getStoreId())
+                .storeItemId(item.getId())
+                .name(item.getName())
+                .brand(item.getBrand())
+                .price(price != null && price > 0 ? price : null)
+                .currency(item.getCurrency() != null ? item.getCurrency() : DEFAULT_CURRENCY)
+                .promo(item.getIsPromotion() != null && item.getIsPromotion())
+                .lastPriceUpdate(item.getLastPriceUpdate())
+                .build();
+    }
+}
@@ -0,0 +1,376 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.StoreItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Resident n-gram inverted index over reference items for search-as-you-type.
+ * <p>
+ * Each reference item is indexed on its name, Arabic name and category, plus the brand and
+ * barcode of every store item linked to it. Text is normalized before indexing and querying
+ * (case, Latin accents, Arabic diacritics and tatweel, alef/ya/ta-marbuta variants, Arabic-Indic
+ * digits), split into tokens, and every token is indexed by its trigrams plus a start-anchored
+ * gram so one- and two-letter prefixes work. Candidates are the intersection of the posting
+ * lists and are verified and ranked in memory: exact word over prefix over substring, name
+ * fields over category over brand/barcode.
+ * <p>
+ * Loaded after startup and kept in sync by the reference item and store item services;
+ * {@link StoreItemVersion} rebuilds it when another pod writes store items. Until then {@link #isReady()} is false and callers must search Mongo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{Mn}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final char ANCHOR = '^';
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int STORE_ITEM_WEIGHT = 1;
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    private volatile Map<String, Document> documents = new ConcurrentHashMap<>();
+    // Non-null while a reload is streaming; writes made meanwhile are replayed on the new index
+    private List<Consumer<SearchIndex>> pendingPatches;
+    private final Object reloadLock = new Object();
+
+    private volatile boolean ready = false;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Search index load failed, searches will read from Mongo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from reference_items and store_items. Searches keep reading the old index meanwhile.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                pendingPatches = new ArrayList<>();
+            }
+            SearchIndex fresh = new SearchIndex(mongoTemplate);
+            try {
+                try (Stream<ReferenceItem> items = mongoTemplate.stream(new Query(), ReferenceItem.class)) {
+                    items.forEach(fresh::putReferenceItem);
+                }
+                Query storeItemQuery = new Query();
+                storeItemQuery.fields().include("storeId", "referenceItemId", "brand", "barcode");
+                try (Stream<StoreItem> items = mongoTemplate.stream(storeItemQuery, StoreItem.class)) {
+                    items.forEach(fresh::putStoreItem);
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingPatches = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pendingPatches.forEach(patch -> patch.accept(fresh));
+                pendingPatches = null;
+                postings = fresh.postings;
+                documents = fresh.documents;
+                ready = true;
+            }
+            log.info("Search index loaded {} reference items in {} ms",
+                    fresh.documents.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reference items matching every word of the query, best match first
+     */
+    public List<ReferenceItem> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Rarest gram first so the intersection shrinks as fast as possible
+        List<Set<String>> lists = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(terms)) {
+            for (String gram : queryGrams(term)) {
+                lists.add(postings.getOrDefault(gram, Set.of()));
+            }
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Hit> hits = new ArrayList<>();
+        for (String id : lists.get(0)) {
+            if (!containsAll(lists, id)) {
+                continue;
+            }
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            int score = document.score(terms);
+            if (score > 0) {
+                hits.add(new Hit(document.item, score));
+            }
+        }
+
+        return hits.stream()
+                .sorted(Comparator.comparingInt(Hit::score).reversed()
+                        .thenComparing(hit -> Objects.requireNonNullElse(hit.item().getName(), "")))
+                .limit(limit)
+                .map(Hit::item)
+                .toList();
+    }
+
+    public synchronized void putReferenceItem(ReferenceItem item) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.putReferenceItem(item));
+        }
+        Document previous = documents.get(item.getId());
+        Document document = new Document(item, previous != null ? previous.storeItems : new HashMap<>());
+        documents.put(item.getId(), document);
+        reindex(item.getId(), previous, document);
+    }
+
+    public synchronized void removeReferenceItem(String referenceItemId) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.removeReferenceItem(referenceItemId));
+        }
+        Document previous = documents.remove(referenceItemId);
+        if (previous != null) {
+            reindex(referenceItemId, previous, null);
+        }
+    }
+
+    public synchronized void putStoreItem(StoreItem storeItem) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.putStoreItem(storeItem));
+        }
+        Document document = documents.get(storeItem.getReferenceItemId());
+        if (document == null) {
+            return;
+        }
+        Set<String> before = document.grams();
+        List<String> tokens = new ArrayList<>(tokenize(storeItem.getBrand()));
+        tokens.addAll(tokenize(storeItem.getBarcode()));
+        document.storeItems.put(storeItem.getId(), new StoreItemTerms(storeItem.getStoreId(), tokens));
+        updatePostings(storeItem.getReferenceItemId(), before, document.grams());
+    }
+
+    public synchronized void removeStoreItem(StoreItem storeItem) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.removeStoreItem(storeItem));
+        }
+        Document document = documents.get(storeItem.getReferenceItemId());
+        if (document == null) {
+            return;
+        }
+        Set<String> before = document.grams();
+        if (document.storeItems.remove(storeItem.getId()) != null) {
+            updatePostings(storeItem.getReferenceItemId(), before, document.grams());
+        }
+    }
+
+    /**
+     * Drop the store item terms of a reference item for the given stores (all stores when null)
+     */
+    public synchronized void removeStoreItems(String referenceItemId, Collection<String> storeIds) {
+        if (pendingPatches != null) {
+            pendingPatches.add(index -> index.removeStoreItems(referenceItemId, storeIds));
+        }
+        Document document = documents.get(referenceItemId);
+        if (document == null) {
+            return;
+        }
+        Set<String> before = document.grams();
+        document.storeItems.values().removeIf(terms -> storeIds == null || storeIds.contains(terms.storeId()));
+        updatePostings(referenceItemId, before, document.grams());
+    }
+
+    /**
+     * Lower-case, strip marks and fold Arabic letter variants, then split into words
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder sb = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            switch (c) {
+                case 'ـ' -> { } // tatweel
+                case 'ٱ', 'آ', 'أ', 'إ' -> sb.append('ا'); // alef variants
+                case 'ى' -> sb.append('ي'); // alef maksura -> ya
+                case 'ة' -> sb.append('ه'); // ta marbuta -> ha
+                default -> {
+                    if (c >= '٠' && c <= '٩') {
+                        sb.append((char) ('0' + (c - '٠')));
+                    } else {
+                        sb.append(Character.toLowerCase(c));
+                    }
+                }
+            }
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(sb)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Grams stored for a token: the start-anchored pair plus every trigram of the anchored token
+     */
+    private static void indexGrams(String token, Set<String> grams) {
+        String anchored = ANCHOR + token;
+        grams.add(anchored.substring(0, 2));
+        for (int i = 0; i + 3 <= anchored.length(); i++) {
+            grams.add(anchored.substring(i, i + 3));
+        }
+    }
+
+    /**
+     * Grams a query term must hit: its trigrams for substring matches, or the anchored prefix when shorter
+     */
+    private static List<String> queryGrams(String term) {
+        if (term.length() >= 3) {
+            List<String> grams = new ArrayList<>(term.length() - 2);
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                grams.add(term.substring(i, i + 3));
+            }
+            return grams;
+        }
+        String anchored = ANCHOR + term;
+        return List.of(anchored.length() == 2 ? anchored : anchored.substring(0, 3));
+    }
+
+    private static boolean containsAll(List<Set<String>> lists, String id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reindex(String id, Document previous, Document current) {
+        updatePostings(id, previous != null ? previous.grams() : Set.of(), current != null ? current.grams() : Set.of());
+    }
+
+    private void updatePostings(String id, Set<String> before, Set<String> after) {
+        for (String gram : before) {
+            if (!after.contains(gram)) {
+                postings.computeIfPresent(gram, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        for (String gram : after) {
+            if (!before.contains(gram)) {
+                postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    private record Hit(ReferenceItem item, int score) {
+    }
+
+    private record StoreItemTerms(String storeId, List<String> tokens) {
+    }
+
+    private static final class Document {
+        private final ReferenceItem item;
+        private final List<String> nameTokens;
+        private final List<String> categoryTokens;
+        // Guarded by the index monitor; read without it only through score()
+        private final Map<String, StoreItemTerms> storeItems;
+
+        Document(ReferenceItem item, Map<String, StoreItemTerms> storeItems) {
+            this.item = item;
+            this.nameTokens = new ArrayList<>(tokenize(item.getName()));
+            this.nameTokens.addAll(tokenize(item.getNameAr()));
+            this.categoryTokens = tokenize(item.getCategory());
+            this.storeItems = new ConcurrentHashMap<>(storeItems);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            nameTokens.forEach(token -> indexGrams(token, grams));
+            categoryTokens.forEach(token -> indexGrams(token, grams));
+            storeItems.values().forEach(terms -> terms.tokens().forEach(token -> indexGrams(token, grams)));
+            return grams;
+        }
+
+        /**
+         * Sum over query terms of the best field match; 0 when any term is missing
+         */
+        int score(List<String> terms) {
+            int total = 0;
+            for (String term : terms) {
+                int best = Math.max(
+                        NAME_WEIGHT * match(term, nameTokens),
+                        CATEGORY_WEIGHT * match(term, categoryTokens));
+                for (StoreItemTerms storeItem : storeItems.values()) {
+                    best = Math.max(best, STORE_ITEM_WEIGHT * match(term, storeItem.tokens()));
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        private static int match(String term, List<String> tokens) {
+            int best = 0;
+            for (String token : tokens) {
+                if (token.equals(term)) {
+                    return 3;
+                } else if (token.startsWith(term)) {
+                    best = Math.max(best, 2);
+                } else if (token.contains(term)) {
+                    best = Math.max(best, 1);
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.model.StoreItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the resident store item caches ({@link PriceMatrix}, {@link BarcodeIndex},
+ * {@link SearchIndex}) of this pod in step with store item writes made on other pods.
+ * <p>
+ * Writes increment one of two shared version stamps in Mongo, once per write operation (a price
+ * micro-batch counts as one): structural changes (store items created or deleted) and price
+ * changes. Each pod remembers the increments it made itself and polls both stamps. Another pod's
+ * structural change rebuilds the caches and drops cached comparisons. Another pod's price change
+ * only reads the store items repriced since the last poll, patches their matrix cells and barcode
+ * entries and drops the cached comparisons that include them. Pods converge within one poll
+ * interval.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StoreItemVersion {
+
+    private static final String VERSION_COLLECTION = "reference_data_version";
+    private static final String STRUCTURE_ID = "store_items";
+    private static final String PRICES_ID = "store_item_prices";
+    // Beyond this many unseen increments stop checking them one by one, some are not ours anyway
+    private static final long MAX_TRACKED_GAP = 10_000;
+    // lastPriceUpdate is stamped by the writing pod's clock; re-read this far back to absorb skew
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(10);
+
+    private final MongoTemplate mongoTemplate;
+    private final PriceMatrix priceMatrix;
+    private final BarcodeIndex barcodeIndex;
+    private final SearchIndex searchIndex;
+    private final BasketResultCache basketResultCache;
+
+    private final Stamp structure = new Stamp(STRUCTURE_ID);
+    private final Stamp prices = new Stamp(PRICES_ID);
+    // Store items repriced since this instant may not be in the caches yet, null until first read
+    private volatile Instant pricesSince;
+    // lastPriceUpdate of the items already in the caches within the skew window, so they are not patched twice
+    private final Map<String, Instant> recentPrices = new ConcurrentHashMap<>();
+
+    /**
+     * Read the stamps before the caches start loading, so a write that lands during their load
+     * is picked up by the first poll
+     */
+    @Async
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            Instant now = Instant.now();
+            structure.init();
+            prices.init();
+            pricesSince = now;
+        } catch (Exception e) {
+            log.warn("Store item version read failed, caches will be rebuilt on the first successful poll: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Announce a store item created or deleted on this pod, after its caches were patched
+     */
+    public void changed() {
+        structure.increment();
+    }
+
+    /**
+     * Announce store items repriced on this pod, after their caches were patched
+     */
+    public void pricesChanged(Collection<StoreItem> repriced) {
+        repriced.forEach(item -> recentPrices.put(item.getId(), item.getLastPriceUpdate()));
+        prices.increment();
+    }
+
+    /**
+     * Rebuild the caches when another pod has created or deleted store items since the last poll,
+     * otherwise patch in the prices it has written
+     */
+    @Scheduled(fixedDelayString = "${smartbasket.store-items.poll-interval:30s}")
+    public void poll() {
+        boolean structural;
+        boolean repriced;
+        Instant now = Instant.now();
+        try {
+            structural = structure.poll();
+            repriced = prices.poll();
+        } catch (Exception e) {
+            log.warn("Store item version check failed, keeping the current caches: {}", e.getMessage());
+            return;
+        }
+        if (structural || pricesSince == null) {
+            log.info("Store items changed on another pod, rebuilding caches");
+            rebuildCaches();
+            pricesSince = now;
+        } else if (repriced) {
+            try {
+                pricesSince = applyPrices(pricesSince, now);
+            } catch (Exception e) {
+                log.warn("Price delta read failed, retrying on the next poll: {}", e.getMessage());
+            }
+        }
+        // Older prices are never read again by a delta
+        Instant horizon = pricesSince.minus(CLOCK_SKEW);
+        recentPrices.values().removeIf(updated -> updated == null || updated.isBefore(horizon));
+    }
+
+    /**
+     * Rebuild every resident store item cache, then drop cached comparisons computed from the old ones
+     */
+    public void rebuildCaches() {
+        if (priceMatrix.isEnabled()) {
+            rebuild("price matrix", priceMatrix::rebuild);
+        }
+        rebuild("barcode index", barcodeIndex::reload);
+        rebuild("search index", searchIndex::reload);
+        basketResultCache.bumpAll();
+    }
+
+    /**
+     * Patch the caches with the store items repriced since the given instant (minus clock skew)
+     * that they do not hold yet
+     *
+     * @return the instant the next delta starts from
+     */
+    private Instant applyPrices(Instant since, Instant now) {
+        Instant from = since.minus(CLOCK_SKEW);
+        Query query = Query.query(Criteria.where("lastPriceUpdate").gt(from));
+        query.fields().exclude("images");
+        int patched = 0;
+        try (Stream<StoreItem> items = mongoTemplate.stream(query, StoreItem.class)) {
+            for (StoreItem item : (Iterable<StoreItem>) items::iterator) {
+                // Skip prices the caches already hold, and older ones read before a newer local write
+                Instant held = recentPrices.get(item.getId());
+                if (held != null && !item.getLastPriceUpdate().isAfter(held)) {
+                    continue;
+                }
+                recentPrices.put(item.getId(), item.getLastPriceUpdate());
+                priceMatrix.put(item);
+                barcodeIndex.put(item);
+                basketResultCache.bumpItem(item.getReferenceItemId());
+                patched++;
+            }
+        }
+        log.debug("Patched {} store items repriced on other pods", patched);
+        return now;
+    }
+
+    private static void rebuild(String name, Runnable rebuild) {
+        try {
+            rebuild.run();
+        } catch (Exception e) {
+            log.warn("{} rebuild failed, keeping the current one: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * One shared stamp and the increments this pod made to it
+     */
+    private final class Stamp {
+        private final String id;
+        // Stamp the caches are known to reflect, -1 until first read
+        private final AtomicLong known = new AtomicLong(-1);
+        // Increments made by this pod that the poll has not accounted for yet
+        private final Set<Long> local = new ConcurrentSkipListSet<>();
+
+        Stamp(String id) {
+            this.id = id;
+        }
+
+        void init() {
+            known.compareAndSet(-1, read());
+        }
+
+        void increment() {
+            try {
+                Document stamp = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(id)),
+                        new Update().inc("stamp", 1L),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        Document.class,
+                        VERSION_COLLECTION);
+                local.add(stamp.get("stamp", Number.class).longValue());
+            } catch (Exception e) {
+                log.warn("Store item version stamp {} not updated, other pods will not see this change until they rebuild: {}",
+                        id, e.getMessage());
+            }
+        }
+
+        /**
+         * @return whether another pod has incremented the stamp since the last poll
+         */
+        boolean poll() {
+            long stamp = read();
+            long previous = known.getAndSet(stamp);
+            boolean remote = previous < 0 || stamp - previous > MAX_TRACKED_GAP;
+            for (long s = previous + 1; !remote && s <= stamp; s++) {
+                remote = !local.remove(s);
+            }
+            local.removeIf(s -> s <= stamp);
+            return remote;
+        }
+
+        private long read() {
+            Document stamp = mongoTemplate.findById(id, Document.class, VERSION_COLLECTION);
+            return stamp != null ? stamp.get("stamp", Number.class).longValue() : 0L;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.dto.ItemSuggestionDto;
+import com.smartbasket.backend.model.ReferenceItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead suggestions for active reference items, answered by a single map lookup.
+ * <p>
+ * Every normalized prefix (up to {@link #MAX_PREFIX} characters) of an item's English and Arabic
+ * name, starting at each word, maps to the precomputed top {@link #MAX_LIMIT} item ids for that prefix, ranked by
+ * how often the item has been compared in baskets and then by name. The prefix table is an
+ * immutable snapshot rebuilt in the background when items or popularity have changed; item
+ * details are read live so renames and deletes show up without waiting for the rebuild.
+ * <p>
+ * Popularity counts are kept in memory for indexed items only, start from zero on every restart
+ * and are halved every decay interval so the ranking follows what is compared lately.
+ */
+@Slf4j
+@Component
+public class SuggestionIndex {
+
+    static final int MAX_PREFIX = 24;
+    // Most suggestions a request can ask for; every prefix keeps this many so any limit is served in full
+    public static final int MAX_LIMIT = 50;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, Suggestion> items = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> popularity = new ConcurrentHashMap<>();
+
+    private volatile Map<String, String[]> prefixes = Map.of();
+    private volatile boolean dirty = false;
+    private volatile boolean ready = false;
+
+    public SuggestionIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Suggestion index load failed, suggestions will read from Mongo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Load active items from Mongo and drop the ones that were deleted or deactivated meanwhile
+     */
+    public void reload() {
+        Set<String> previous = Set.copyOf(items.keySet());
+        Set<String> loaded = new HashSet<>();
+        Query query = Query.query(Criteria.where("active").is(true));
+        query.fields().include("name", "nameAr", "images", "active");
+        try (Stream<ReferenceItem> stream = mongoTemplate.stream(query, ReferenceItem.class)) {
+            stream.forEach(item -> {
+                putReferenceItem(item);
+                loaded.add(item.getId());
+            });
+        }
+        // Items added on this pod during the load were not in previous, so they stay
+        previous.stream().filter(id -> !loaded.contains(id)).forEach(this::removeReferenceItem);
+        rebuild();
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Up to limit suggestions for what the user has typed so far, most popular first
+     */
+    public List<ItemSuggestionDto> suggest(String text, int limit) {
+        String phrase = String.join(" ", SearchIndex.tokenize(text));
+        if (phrase.isEmpty()) {
+            return List.of();
+        }
+        String[] ids = prefixes.get(phrase.length() > MAX_PREFIX ? phrase.substring(0, MAX_PREFIX) : phrase);
+        if (ids == null) {
+            return List.of();
+        }
+
+        List<ItemSuggestionDto> result = new ArrayList<>(Math.min(limit, ids.length));
+        for (String id : ids) {
+            Suggestion suggestion = items.get(id);
+            // Skip items deleted or deactivated since the last rebuild, and long-prefix collisions
+            if (suggestion == null || (phrase.length() > MAX_PREFIX && !suggestion.matches(phrase))) {
+                continue;
+            }
+            result.add(suggestion.dto());
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count one comparison of each item towards its suggestion ranking. Ids that are not active
+     * indexed items are ignored, so the counts never outgrow the index.
+     */
+    public void recordBasket(Collection<String> referenceItemIds) {
+        for (String id : referenceItemIds) {
+            if (items.containsKey(id)) {
+                popularity.computeIfAbsent(id, k -> new LongAdder()).increment();
+                dirty = true;
+            }
+        }
+    }
+
+    public void putReferenceItem(ReferenceItem item) {
+        if (!item.isActive()) {
+            removeReferenceItem(item.getId());
+            return;
+        }
+        List<String> images = item.getImages();
+        ItemSuggestionDto dto = ItemSuggestionDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .nameAr(item.getNameAr())
+                .thumbnail(images != null && !images.isEmpty() ? images.get(0) : null)
+                .build();
+        items.put(item.getId(), new Suggestion(dto, phrases(item)));
+        dirty = true;
+    }
+
+    public void removeReferenceItem(String referenceItemId) {
+        popularity.remove(referenceItemId);
+        if (items.remove(referenceItemId) != null) {
+            dirty = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${smartbasket.search.suggest.refresh-interval:30s}")
+    public void refresh() {
+        if (ready && dirty) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Halve every popularity count and forget the ones that reach zero
+     */
+    @Scheduled(fixedDelayString = "${smartbasket.search.suggest.popularity-decay-interval:1d}",
+            initialDelayString = "${smartbasket.search.suggest.popularity-decay-interval:1d}")
+    public void decayPopularity() {
+        popularity.forEach((id, count) -> {
+            long halved = count.sumThenReset() / 2;
+            if (halved > 0) {
+                count.add(halved);
+            } else {
+                popularity.remove(id, count);
+            }
+        });
+        dirty = true;
+    }
+
+    /**
+     * Recompute the top-K list of every prefix and swap it in
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        dirty = false;
+
+        Map<String, List<Suggestion>> candidates = new HashMap<>();
+        for (Suggestion suggestion : items.values()) {
+            Set<String> keys = new HashSet<>();
+            for (String phrase : suggestion.phrases()) {
+                for (int end = 1; end <= Math.min(phrase.length(), MAX_PREFIX); end++) {
+                    keys.add(phrase.substring(0, end));
+                }
+            }
+            for (String key : keys) {
+                candidates.computeIfAbsent(key, k -> new ArrayList<>()).add(suggestion);
+            }
+        }
+
+        Comparator<Suggestion> ranking = Comparator
+                .comparingLong((Suggestion s) -> popularityOf(s.dto().getId())).reversed()
+                .thenComparing(s -> s.dto().getName() != null ? s.dto().getName() : "");
+        Map<String, String[]> fresh = new HashMap<>(candidates.size() * 2);
+        candidates.forEach((key, list) -> fresh.put(key, list.stream()
+                .sorted(ranking)
+                .limit(MAX_LIMIT)
+                .map(s -> s.dto().getId())
+                .toArray(String[]::new)));
+
+        prefixes = fresh;
+        log.debug("Suggestion index rebuilt: {} prefixes over {} items in {} ms",
+                fresh.size(), items.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long popularityOf(String referenceItemId) {
+        LongAdder count = popularity.get(referenceItemId);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Normalized names, once from each word onwards, so "whole milk" is found by "wh" and "mi"
+     */
+    private static List<String> phrases(ReferenceItem item) {
+        List<String> phrases = new ArrayList<>();
+        for (String name : new String[]{item.getName(), item.getNameAr()}) {
+            List<String> tokens = SearchIndex.tokenize(name);
+            for (int i = 0; i < tokens.size(); i++) {
+                phrases.add(String.join(" ", tokens.subList(i, tokens.size())));
+            }
+        }
+        return phrases;
+    }
+
+    private record Suggestion(ItemSuggestionDto dto, List<String> phrases) {
+        boolean matches(String prefix) {
+            return phrases.stream().anyMatch(phrase -> phrase.startsWith(prefix));
+        }
+    }
+}
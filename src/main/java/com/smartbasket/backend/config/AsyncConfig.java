@@ -0,0 +1,12 @@
+package com.smartbasket.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables @Async so warm-up work (e.g. loading in-memory indexes) runs off the startup thread
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
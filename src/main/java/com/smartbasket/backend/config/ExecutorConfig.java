@@ -0,0 +1,71 @@
+package com.smartbasket.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads for request handling and internal fan-out (see FanOut), selected by smartbasket.executor.mode:
+ * <ul>
+ *   <li>platform (default): a fixed pool of platform threads for fan-out; Tomcat keeps its own pool</li>
+ *   <li>virtual: one virtual thread per task for fan-out and for every Tomcat request (JDK 21+;
+ *       falls back to platform threads with a warning on older JDKs)</li>
+ * </ul>
+ * Virtual threads make threads cheap, not Mongo connections: every blocking query still needs a
+ * pooled connection, so the Mongo pool is sized here too and its wait queue is exported as
+ * mongodb.driver.pool.waitqueuesize. If that gauge climbs, raise the pool or lower the fan-out
+ * rather than adding threads.
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Run every Tomcat request on its own virtual thread
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "smartbasket.executor.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequestHandling() {
+        ExecutorService executor = virtualThreadExecutor();
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolSizing(
+            @Value("${smartbasket.mongo.pool.max-size:100}") int maxSize,
+            @Value("${smartbasket.mongo.pool.min-size:0}") int minSize,
+            @Value("${smartbasket.mongo.pool.max-wait:2s}") Duration maxWait) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWait.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() when running on JDK 21+, looked up reflectively
+     * because the build targets Java 17; null when unavailable
+     */
+    public static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads need JDK 21+ (running {}), using platform threads", Runtime.version());
+            return null;
+        }
+    }
+}
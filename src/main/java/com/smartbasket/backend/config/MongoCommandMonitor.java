@@ -0,0 +1,359 @@
+package com.smartbasket.backend.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Driver-level view of Mongo traffic, replacing DEBUG logging of every MongoTemplate query
+ * (which cost throughput by itself):
+ * <ul>
+ *   <li>round trips, Mongo time, documents and reply bytes of the current request, plus how often
+ *       each command shape repeated in it, read by {@link RequestMetricsFilter}</li>
+ *   <li>commands slower than smartbasket.mongo.slow-query.threshold are counted in
+ *       mongodb.commands.slow and logged, at most max-per-second lines</li>
+ * </ul>
+ * Per-command timers (mongodb.driver.commands) come from Spring Boot's own listener.
+ */
+@Slf4j
+@Configuration
+public class MongoCommandMonitor implements CommandListener {
+
+    private static final int MAX_LOGGED_COMMAND_LENGTH = 500;
+    private static final int MAX_SHAPE_LENGTH = 200;
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
+    // Cursor continuations and session housekeeping, not queries the code chose to issue
+    private static final Set<String> UNSHAPED_COMMANDS = Set.of("getMore", "killCursors", "endSessions");
+
+    private final MeterRegistry meterRegistry;
+    private final long thresholdNanos;
+    private final int maxPerSecond;
+    private final boolean logCommands;
+
+    // requestId -> "command collection" (plus the command text when logCommands), while in flight
+    private final Map<Integer, String> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> slowCommands = new ConcurrentHashMap<>();
+    private final AtomicLong logWindow = new AtomicLong();
+    private final AtomicInteger loggedInWindow = new AtomicInteger();
+
+    public MongoCommandMonitor(MeterRegistry meterRegistry,
+                               @Value("${smartbasket.mongo.slow-query.threshold:100ms}") Duration threshold,
+                               @Value("${smartbasket.mongo.slow-query.max-per-second:5}") int maxPerSecond,
+                               @Value("${smartbasket.mongo.slow-query.log-commands:false}") boolean logCommands) {
+        this.meterRegistry = meterRegistry;
+        this.thresholdNanos = threshold.toNanos();
+        this.maxPerSecond = maxPerSecond;
+        this.logCommands = logCommands;
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMonitoring() {
+        return settings -> settings.addCommandListener(this);
+    }
+
+    /**
+     * Carry request stats into tasks run on the application task executor: @Async methods and
+     * async request processing such as StreamingResponseBody
+     */
+    @Bean
+    public TaskDecorator requestStatsTaskDecorator() {
+        return task -> propagate(task);
+    }
+
+    /**
+     * Mongo work done on behalf of one request, across the threads it fans out to
+     */
+    public static final class RequestStats {
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+        public long commands() {
+            return commands.sum();
+        }
+
+        public long nanos() {
+            return nanos.sum();
+        }
+
+        /**
+         * Documents returned by queries plus documents affected by writes
+         */
+        public long documents() {
+            return documents.sum();
+        }
+
+        /**
+         * BSON size of all replies
+         */
+        public long bytes() {
+            return bytes.sum();
+        }
+
+        /**
+         * The command shape issued most often in this request and its count, or null if none was issued
+         */
+        public Map.Entry<String, Long> mostRepeated() {
+            return shapes.entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                    .max(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                    .orElse(null);
+        }
+
+        /**
+         * Count work done on behalf of several requests at once (e.g. a shared write batch) for this one too
+         */
+        public void add(RequestStats other) {
+            commands.add(other.commands());
+            nanos.add(other.nanos());
+            documents.add(other.documents());
+            bytes.add(other.bytes());
+            other.shapes.forEach((shape, count) -> shapes.computeIfAbsent(shape, k -> new LongAdder()).add(count.sum()));
+        }
+    }
+
+    /**
+     * Start counting for the request on this thread
+     */
+    public static RequestStats begin() {
+        RequestStats stats = new RequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stats of the request on this thread, or null outside a request
+     */
+    public static RequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the task with the caller's request stats, so commands it issues on another thread
+     * still count for the request
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        RequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            RequestStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable task) {
+        RequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            RequestStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // The command document is only valid during this call, so anything logged later is copied now
+        BsonValue target = event.getCommand().get(event.getCommandName());
+        String description = target != null && target.isString()
+                ? event.getCommandName() + " " + target.asString().getValue()
+                : event.getCommandName();
+        if (logCommands) {
+            String command = event.getCommand().toJson();
+            description += " " + (command.length() > MAX_LOGGED_COMMAND_LENGTH
+                    ? command.substring(0, MAX_LOGGED_COMMAND_LENGTH) + "..."
+                    : command);
+        }
+        inFlight.put(event.getRequestId(), description);
+
+        // The sync driver calls listeners on the issuing thread, so this is the request's stats
+        RequestStats stats = CURRENT.get();
+        if (stats != null && !UNSHAPED_COMMANDS.contains(event.getCommandName())) {
+            stats.shapes.computeIfAbsent(shapeOf(event), shape -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            BsonDocument response = event.getResponse();
+            stats.documents.add(documentCount(response));
+            stats.bytes.add(sizeOf(response));
+        }
+        completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), null);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS),
+                event.getThrowable());
+    }
+
+    private void completed(int requestId, String commandName, long elapsedNanos, Throwable failure) {
+        String description = inFlight.remove(requestId);
+
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.commands.increment();
+            stats.nanos.add(elapsedNanos);
+        }
+
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        slowCommands.computeIfAbsent(commandName, command -> Counter.builder("mongodb.commands.slow")
+                .description("Mongo commands slower than smartbasket.mongo.slow-query.threshold")
+                .tag("command", command)
+                .register(meterRegistry))
+                .increment();
+        if (shouldLog()) {
+            log.warn("Slow Mongo command ({} ms{}): {}", elapsedNanos / 1_000_000,
+                    failure != null ? ", failed: " + failure.getMessage() : "",
+                    description != null ? description : commandName);
+        }
+    }
+
+    /**
+     * Command name, collection and filter with every value replaced by ?, so the same query issued
+     * for different ids (an N+1 loop) has one shape
+     */
+    static String shapeOf(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        String name = event.getCommandName();
+        BsonValue target = command.get(name);
+        StringBuilder shape = new StringBuilder(name);
+        if (target != null && target.isString()) {
+            shape.append(' ').append(target.asString().getValue());
+        }
+        BsonValue filter = command.containsKey("filter") ? command.get("filter")
+                : command.containsKey("query") ? command.get("query")
+                : command.get("pipeline");
+        if (filter != null) {
+            shape.append(' ');
+            appendShape(shape, filter);
+        }
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) + "..." : shape.toString();
+    }
+
+    private static void appendShape(StringBuilder shape, BsonValue value) {
+        if (value.isDocument()) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+                if (!first) {
+                    shape.append(',');
+                }
+                first = false;
+                shape.append(field.getKey()).append(':');
+                appendShape(shape, field.getValue());
+            }
+            shape.append('}');
+        } else if (value.isArray() && !value.asArray().isEmpty() && value.asArray().get(0).isDocument()) {
+            // Pipelines and $or/$and: keep the structure of each element
+            shape.append('[');
+            BsonArray array = value.asArray();
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    shape.append(',');
+                }
+                appendShape(shape, array.get(i));
+            }
+            shape.append(']');
+        } else {
+            shape.append('?');
+        }
+    }
+
+    private static int documentCount(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                    ? cursor.asDocument().get("firstBatch")
+                    : cursor.asDocument().get("nextBatch");
+            return batch != null && batch.isArray() ? batch.asArray().size() : 0;
+        }
+        BsonValue n = response.get("n");
+        return n != null && n.isNumber() ? n.asNumber().intValue() : 0;
+    }
+
+    private static int sizeOf(BsonDocument response) {
+        if (response instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            DOCUMENT_CODEC.encode(writer, response, EncoderContext.builder().build());
+        }
+        return buffer.getPosition();
+    }
+
+    /**
+     * At most maxPerSecond log lines per wall-clock second
+     */
+    private boolean shouldLog() {
+        long second = System.currentTimeMillis() / 1000;
+        long window = logWindow.get();
+        if (window != second && logWindow.compareAndSet(window, second)) {
+            loggedInWindow.set(0);
+        }
+        return loggedInWindow.incrementAndGet() <= maxPerSecond;
+    }
+}
@@ -0,0 +1,78 @@
+package com.smartbasket.backend.config;
+
+import com.smartbasket.backend.model.Category;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.model.StorePrice;
+import com.smartbasket.backend.model.StorePriceBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on the documents (@Indexed, @CompoundIndex) and drops the ones they replaced.
+ * Spring Boot leaves auto-index-creation off, so without this the annotations are only documentation.
+ * Runs in the background after startup so an unreachable database does not block the application.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> DOCUMENTS = List.of(
+            Store.class, Category.class, ReferenceItem.class, StoreItem.class, StorePrice.class, StorePriceBucket.class);
+
+    // Indexes superseded by a wider one declared on the document; they only slow writes down
+    private static final Map<Class<?>, List<String>> REPLACED = Map.of(
+            StorePrice.class, List.of("storeItemId_timestamp"),
+            StorePriceBucket.class, List.of("storeItemId_bucketStart"));
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> document : DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(document);
+            boolean created = true;
+            for (IndexDefinition index : resolver.resolveIndexFor(document)) {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (DataAccessResourceFailureException e) {
+                    log.warn("Database unreachable, skipping index creation: {}", e.getMessage());
+                    return;
+                } catch (Exception e) {
+                    log.warn("Could not create index {} on {}: {}", index.getIndexKeys(), document.getSimpleName(), e.getMessage());
+                    created = false;
+                }
+            }
+            // Keep the old indexes until their replacements exist
+            for (String name : created ? REPLACED.getOrDefault(document, List.of()) : List.<String>of()) {
+                try {
+                    if (indexOps.getIndexInfo().stream().anyMatch(info -> info.getName().equals(name))) {
+                        indexOps.dropIndex(name);
+                        log.info("Dropped replaced index {} on {}", name, document.getSimpleName());
+                    }
+                } catch (Exception e) {
+                    log.warn("Could not drop replaced index {} on {}: {}", name, document.getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
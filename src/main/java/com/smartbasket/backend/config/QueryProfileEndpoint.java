@@ -0,0 +1,175 @@
+package com.smartbasket.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route Mongo profile at /actuator/queryprofile, worst offenders first.
+ * <p>
+ * A request whose most frequent command shape ran more than
+ * smartbasket.mongo.profiler.repeat-threshold times is flagged as a likely N+1: it is counted in
+ * mongodb.requests.repeated and logged the first time a route exceeds its previous worst.
+ * DELETE on the endpoint clears the collected profile. It is not in the default web exposure;
+ * add it to management.endpoints.web.exposure.include only on an internal management port.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "queryprofile")
+public class QueryProfileEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatThreshold;
+    private final int maxRoutes;
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> repeatedRequests = new ConcurrentHashMap<>();
+
+    public QueryProfileEndpoint(MeterRegistry meterRegistry,
+                                @Value("${smartbasket.mongo.profiler.repeat-threshold:10}") int repeatThreshold,
+                                @Value("${smartbasket.mongo.profiler.max-routes:20}") int maxRoutes) {
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+        this.maxRoutes = maxRoutes;
+    }
+
+    /**
+     * One route's Mongo usage since startup (or the last reset)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RouteProfile {
+        private String route;
+        private long requests;
+        private long repeatedRequests;
+        private double avgCommands;
+        private long maxCommands;
+        private double avgDocuments;
+        private double avgBytes;
+        private double avgMongoMillis;
+        private String worstShape;
+        private long worstShapeCount;
+    }
+
+    @ReadOperation
+    public List<RouteProfile> profile() {
+        return routes.entrySet().stream()
+                .map(entry -> entry.getValue().toProfile(entry.getKey()))
+                .sorted(Comparator.comparingLong(RouteProfile::getWorstShapeCount)
+                        .thenComparingDouble(RouteProfile::getAvgCommands)
+                        .reversed())
+                .limit(maxRoutes)
+                .toList();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        routes.clear();
+    }
+
+    /**
+     * Whether the request repeated one command shape often enough to look like an N+1
+     */
+    public boolean isRepeated(Map.Entry<String, Long> mostRepeated) {
+        return mostRepeated != null && mostRepeated.getValue() > repeatThreshold;
+    }
+
+    /**
+     * Add a finished request to its route's profile
+     */
+    public void record(String method, String uri, MongoCommandMonitor.RequestStats stats) {
+        if (stats.commands() == 0) {
+            return;
+        }
+        String route = method + " " + uri;
+        Map.Entry<String, Long> mostRepeated = stats.mostRepeated();
+        boolean repeated = isRepeated(mostRepeated);
+        RouteStats routeStats = routes.computeIfAbsent(route, key -> new RouteStats());
+        boolean newWorst = routeStats.add(stats, mostRepeated, repeated);
+
+        if (repeated) {
+            repeatedRequests.computeIfAbsent(route, key -> Counter.builder("mongodb.requests.repeated")
+                    .description("Requests that repeated one Mongo command shape more than the profiler threshold")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry))
+                    .increment();
+            if (newWorst) {
+                log.warn("Possible N+1 on {}: {} x {} ({} commands in the request)",
+                        route, mostRepeated.getValue(), mostRepeated.getKey(), stats.commands());
+            }
+        }
+    }
+
+    private static final class RouteStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder repeatedRequests = new LongAdder();
+        private final LongAdder commands = new LongAdder();
+        private final LongAccumulator maxCommands = new LongAccumulator(Math::max, 0);
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private String worstShape;
+        private long worstShapeCount;
+
+        /**
+         * Returns true when the request set a new worst repeat count for the route
+         */
+        boolean add(MongoCommandMonitor.RequestStats stats, Map.Entry<String, Long> mostRepeated, boolean repeated) {
+            requests.increment();
+            if (repeated) {
+                repeatedRequests.increment();
+            }
+            commands.add(stats.commands());
+            maxCommands.accumulate(stats.commands());
+            documents.add(stats.documents());
+            bytes.add(stats.bytes());
+            nanos.add(stats.nanos());
+            if (mostRepeated == null) {
+                return false;
+            }
+            synchronized (this) {
+                if (mostRepeated.getValue() <= worstShapeCount) {
+                    return false;
+                }
+                worstShape = mostRepeated.getKey();
+                worstShapeCount = mostRepeated.getValue();
+                return true;
+            }
+        }
+
+        synchronized RouteProfile toProfile(String route) {
+            double count = Math.max(1, requests.sum());
+            return RouteProfile.builder()
+                    .route(route)
+                    .requests(requests.sum())
+                    .repeatedRequests(repeatedRequests.sum())
+                    .avgCommands(commands.sum() / count)
+                    .maxCommands(maxCommands.get())
+                    .avgDocuments(documents.sum() / count)
+                    .avgBytes(bytes.sum() / count)
+                    .avgMongoMillis(nanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1))
+                    .worstShape(worstShape)
+                    .worstShapeCount(worstShapeCount)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.smartbasket.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debug mode (smartbasket.mongo.profiler.debug-headers): adds the request's Mongo profile so far
+ * to JSON responses as X-Mongo-* headers. Headers have to be set before the body is written, so
+ * streamed responses are not covered.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "smartbasket.mongo.profiler.debug-headers", havingValue = "true")
+public class QueryProfileHeaders implements ResponseBodyAdvice<Object> {
+
+    private final QueryProfileEndpoint queryProfile;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        MongoCommandMonitor.RequestStats stats = MongoCommandMonitor.current();
+        if (stats == null) {
+            return body;
+        }
+        HttpHeaders headers = response.getHeaders();
+        headers.set("X-Mongo-Commands", Long.toString(stats.commands()));
+        headers.set("X-Mongo-Time-Ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(stats.nanos())));
+        headers.set("X-Mongo-Documents", Long.toString(stats.documents()));
+        headers.set("X-Mongo-Bytes", Long.toString(stats.bytes()));
+        Map.Entry<String, Long> mostRepeated = stats.mostRepeated();
+        if (queryProfile.isRepeated(mostRepeated)) {
+            headers.set("X-Mongo-Repeated", mostRepeated.getValue() + " x " + mostRepeated.getKey());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,114 @@
+package com.smartbasket.backend.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records the Mongo work of each request, tagged like http.server.requests by method and URI
+ * pattern, so endpoints that query in loops stand out: round trips (mongodb.commands.per.request),
+ * documents (mongodb.documents.per.request) and reply bytes (mongodb.bytes.per.request).
+ * Requests are also added to the {@link QueryProfileEndpoint} route profile. Async requests
+ * (streaming bodies) are recorded when the response completes, with the work done on executor
+ * threads included (see {@link MongoCommandMonitor#requestStatsTaskDecorator()}).
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final QueryProfileEndpoint queryProfile;
+    // "method uri" -> its meters, registered on the first request of each route
+    private final Map<String, RouteMeters> meters = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        MongoCommandMonitor.RequestStats stats = MongoCommandMonitor.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MongoCommandMonitor.end();
+            if (request.isAsyncStarted()) {
+                // Streaming bodies keep querying on an executor thread; record once the response is done
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    private final AtomicBoolean recorded = new AtomicBoolean();
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        recordOnce();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        recordOnce();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        recordOnce();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        event.getAsyncContext().addListener(this);
+                    }
+
+                    private void recordOnce() {
+                        if (recorded.compareAndSet(false, true)) {
+                            record(request, stats);
+                        }
+                    }
+                });
+            } else {
+                record(request, stats);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, MongoCommandMonitor.RequestStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        RouteMeters route = meters.computeIfAbsent(method + " " + uri, key -> new RouteMeters(
+                summary("mongodb.commands.per.request", "Mongo round trips made while handling one request",
+                        method, uri),
+                summary("mongodb.documents.per.request", "Documents Mongo returned or wrote for one request",
+                        method, uri),
+                summary("mongodb.bytes.per.request", "Bytes of Mongo replies received for one request",
+                        method, uri)));
+        route.commands().record(stats.commands());
+        route.documents().record(stats.documents());
+        route.bytes().record(stats.bytes());
+        queryProfile.record(method, uri, stats);
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record RouteMeters(DistributionSummary commands, DistributionSummary documents,
+                               DistributionSummary bytes) {
+    }
+}
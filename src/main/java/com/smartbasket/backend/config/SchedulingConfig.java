@@ -0,0 +1,12 @@
+package com.smartbasket.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. price history compaction)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,7 +2,10 @@ package com.smartbasket.backend.controller;
 
 import com.smartbasket.backend.dto.BasketComparisonRequest;
 import com.smartbasket.backend.dto.BasketComparisonResponse;
+import com.smartbasket.backend.dto.BasketOptimizationRequest;
+import com.smartbasket.backend.dto.BasketOptimizationResponse;
 import com.smartbasket.backend.service.BasketComparisonService;
+import com.smartbasket.backend.service.BasketOptimizationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 public class BasketComparisonController {
 
     private final BasketComparisonService basketComparisonService;
+    private final BasketOptimizationService basketOptimizationService;
 
     @PostMapping("/compare")
     public ResponseEntity<BasketComparisonResponse> compareBasket(
@@ -21,4 +25,13 @@ public class BasketComparisonController {
         BasketComparisonResponse response = basketComparisonService.compareBasket(request);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Cheapest way to buy the basket from at most maxStores stores
+     */
+    @PostMapping("/optimize")
+    public ResponseEntity<BasketOptimizationResponse> optimizeBasket(
+            @Valid @RequestBody BasketOptimizationRequest request) {
+        return ResponseEntity.ok(basketOptimizationService.optimizeBasket(request));
+    }
 }
@@ -2,17 +2,29 @@ package com.smartbasket.backend.controller;
 
 import com.smartbasket.backend.dto.BatchPriceUpdateRequest;
 import com.smartbasket.backend.dto.BatchPriceUpdateResponse;
+import com.smartbasket.backend.dto.PriceHistoryPage;
+import com.smartbasket.backend.dto.PriceHistoryPoint;
 import com.smartbasket.backend.model.StorePrice;
+import com.smartbasket.backend.service.PriceFeedReader;
+import com.smartbasket.backend.service.PriceFeedService;
 import com.smartbasket.backend.service.PriceUpdateService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -22,6 +34,7 @@ import java.util.List;
 public class PriceController {
 
     private final PriceUpdateService priceUpdateService;
+    private final PriceFeedService priceFeedService;
 
     /**
      * Update a single item's price
@@ -50,11 +63,59 @@ public class PriceController {
     }
 
     /**
-     * Get price history for a store item
+     * Stream a large price feed (NDJSON or CSV) and get per-chunk results back as NDJSON.
+     * The feed is parsed incrementally, so memory use does not grow with its size.
+     */
+    @PostMapping(value = "/stream", consumes = {NdjsonResponses.NDJSON_VALUE, "text/csv"}, produces = NdjsonResponses.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPrices(
+            @RequestHeader("Content-Type") MediaType contentType,
+            @RequestParam(defaultValue = "1000") @Min(1) @Max(10000) int chunkSize,
+            @RequestParam(defaultValue = "false") boolean skipUnchanged,
+            HttpServletRequest request) throws IOException {
+
+        PriceFeedReader.Format format = NdjsonResponses.NDJSON.isCompatibleWith(contentType)
+                ? PriceFeedReader.Format.NDJSON
+                : PriceFeedReader.Format.CSV;
+        InputStream body = request.getInputStream();
+        StreamingResponseBody stream = out -> priceFeedService.ingest(body, format, chunkSize, skipUnchanged, out);
+        return ResponseEntity.ok().contentType(NdjsonResponses.NDJSON).body(stream);
+    }
+
+    /**
+     * Get price history for a store item, optionally within a time range
      */
     @GetMapping("/history/{storeItemId}")
-    public ResponseEntity<List<StorePrice>> getPriceHistory(@PathVariable String storeItemId) {
-        List<StorePrice> history = priceUpdateService.getPriceHistory(storeItemId);
+    public ResponseEntity<List<StorePrice>> getPriceHistory(
+            @PathVariable String storeItemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        List<StorePrice> history = priceUpdateService.getPriceHistory(storeItemId, from, to);
         return ResponseEntity.ok(history);
     }
+
+    /**
+     * Get price history one page at a time, newest first.
+     * Pass the returned nextCursor as cursor to continue with older entries.
+     */
+    @GetMapping("/history/{storeItemId}/page")
+    public ResponseEntity<PriceHistoryPage> getPriceHistoryPage(
+            @PathVariable String storeItemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return ResponseEntity.ok(priceUpdateService.getPriceHistoryPage(storeItemId, from, to, cursor, limit));
+    }
+
+    /**
+     * Get price history as min / max / last price per hour or day, for charts
+     */
+    @GetMapping("/history/{storeItemId}/downsampled")
+    public ResponseEntity<List<PriceHistoryPoint>> getDownsampledPriceHistory(
+            @PathVariable String storeItemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "DAYS") PriceHistoryPoint.Interval interval) {
+        return ResponseEntity.ok(priceUpdateService.getDownsampledPriceHistory(storeItemId, from, to, interval));
+    }
 }
@@ -1,13 +1,19 @@
 package com.smartbasket.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartbasket.backend.cache.SuggestionIndex;
 import com.smartbasket.backend.dto.CreateReferenceItemRequest;
+import com.smartbasket.backend.dto.ItemSuggestionDto;
 import com.smartbasket.backend.dto.ReferenceItemDto;
 import com.smartbasket.backend.service.ReferenceItemService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,12 +24,21 @@ import java.util.List;
 public class ReferenceItemController {
 
     private final ReferenceItemService referenceItemService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<ReferenceItemDto>> getAllItems() {
         return ResponseEntity.ok(referenceItemService.getAllItems());
     }
 
+    /**
+     * Same as getAllItems, streamed one JSON object per line when the client sends Accept: application/x-ndjson
+     */
+    @GetMapping(produces = NdjsonResponses.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllItems() {
+        return NdjsonResponses.stream(objectMapper, referenceItemService::streamAllItems);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ReferenceItemDto> getItemById(@PathVariable String id) {
         return referenceItemService.getItemById(id)
@@ -37,8 +52,20 @@ public class ReferenceItemController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ReferenceItemDto>> searchItems(@RequestParam String query) {
-        return ResponseEntity.ok(referenceItemService.searchItems(query));
+    public ResponseEntity<List<ReferenceItemDto>> searchItems(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        return ResponseEntity.ok(referenceItemService.searchItems(query, limit));
+    }
+
+    /**
+     * Typeahead suggestions: id, names and thumbnail only, most popular first
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ItemSuggestionDto>> suggestItems(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "8") @Min(1) @Max(SuggestionIndex.MAX_LIMIT) int limit) {
+        return ResponseEntity.ok(referenceItemService.suggestItems(query, limit));
     }
 
     @PostMapping
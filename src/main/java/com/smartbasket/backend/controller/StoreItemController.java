@@ -1,31 +1,87 @@
 package com.smartbasket.backend.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartbasket.backend.dto.CreateStoreItemRequest;
 import com.smartbasket.backend.dto.StoreItemDto;
 import com.smartbasket.backend.service.StoreItemService;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/store-items")
-@RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class StoreItemController {
 
     private final StoreItemService storeItemService;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final TypeReference<LinkedHashMap<String, Object>> FIELDS = new TypeReference<>() {
+    };
+
+    public StoreItemController(StoreItemService storeItemService, ObjectMapper objectMapper,
+                               @Value("${smartbasket.store-items.default-page-size:100}") int defaultPageSize) {
+        this.storeItemService = storeItemService;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+    }
 
     /**
-     * Get all store items
+     * Get store items, optionally filtered by store, category or promotion.
+     * With a limit or a cursor the result is one page (smartbasket.store-items.default-page-size
+     * items when only the cursor is given); the X-Next-Cursor header holds the cursor for the next page.
+     * Without either, all matching items are returned.
+     * fields restricts the returned fields (comma separated StoreItemDto field names); the others are left out.
      */
     @GetMapping
-    public ResponseEntity<List<StoreItemDto>> getAllStoreItems() {
-        List<StoreItemDto> items = storeItemService.getAll();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<List<?>> getAllStoreItems(
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) Boolean promotion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(1000) Integer limit,
+            @RequestParam(required = false) Set<String> fields) {
+        Integer pageSize = limit != null ? limit : cursor != null ? defaultPageSize : null;
+        List<StoreItemDto> items = storeItemService.getAll(storeId, categoryId, promotion, cursor, pageSize, fields);
+        List<?> body = fields != null && !fields.isEmpty()
+                ? items.stream().map(item -> project(item, fields)).toList()
+                : items;
+        if (pageSize != null && items.size() == pageSize) {
+            return ResponseEntity.ok()
+                    .header(NEXT_CURSOR_HEADER, items.get(items.size() - 1).getId())
+                    .body(body);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * The requested fields of a store item, plus its id
+     */
+    private Map<String, Object> project(StoreItemDto item, Set<String> fields) {
+        Map<String, Object> projected = objectMapper.convertValue(item, FIELDS);
+        projected.keySet().removeIf(field -> !field.equals("id") && !fields.contains(field));
+        return projected;
+    }
+
+    /**
+     * Stream all store items one JSON object per line when the client sends Accept: application/x-ndjson
+     */
+    @GetMapping(produces = NdjsonResponses.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStoreItems() {
+        return NdjsonResponses.<StoreItemDto>stream(objectMapper, consumer -> storeItemService.streamAll(null, consumer));
     }
 
     /**
@@ -56,6 +112,14 @@ public class StoreItemController {
         return ResponseEntity.ok(items);
     }
 
+    /**
+     * Scan-to-price: the item behind a barcode at every store, cheapest first
+     */
+    @GetMapping("/barcode/{code}")
+    public ResponseEntity<List<StoreItemDto>> getByBarcode(@PathVariable String code) {
+        return ResponseEntity.ok(storeItemService.getByBarcode(code));
+    }
+
     /**
      * Get all store items for a specific store
      */
@@ -65,6 +129,14 @@ public class StoreItemController {
         return ResponseEntity.ok(items);
     }
 
+    /**
+     * Stream a store's items one JSON object per line when the client sends Accept: application/x-ndjson
+     */
+    @GetMapping(value = "/by-store/{storeId}", produces = NdjsonResponses.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByStore(@PathVariable String storeId) {
+        return NdjsonResponses.<StoreItemDto>stream(objectMapper, consumer -> storeItemService.streamAll(storeId, consumer));
+    }
+
     /**
      * Delete a store item and cleanup linkage
      */
@@ -1,6 +1,10 @@
 package com.smartbasket.backend.dto;
 
-import jakarta.validation.constraints.NotEmpty;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,6 +17,36 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class BasketComparisonRequest {
-    @NotEmpty(message = "Basket must contain at least one item")
+    // Items counted once each (kept for existing clients)
     private List<String> referenceItemIds;
+
+    // Items with quantities; lines for the same item are added up
+    @Valid
+    private List<BasketLine> items;
+
+    // Skip the per-item breakdown and return store totals only
+    private Boolean summaryOnly;
+
+    // Return only the best K stores (all when null)
+    @Min(value = 1, message = "topK must be at least 1")
+    private Integer topK;
+
+    @JsonIgnore
+    @AssertTrue(message = "Basket must contain at least one item")
+    public boolean isBasketPresent() {
+        return (referenceItemIds != null && !referenceItemIds.isEmpty()) || (items != null && !items.isEmpty());
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BasketLine {
+        @NotBlank(message = "Reference item ID is required")
+        private String referenceItemId;
+
+        @Builder.Default
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private int quantity = 1;
+    }
 }
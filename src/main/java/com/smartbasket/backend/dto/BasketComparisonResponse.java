@@ -13,7 +13,8 @@ import java.util.List;
 @AllArgsConstructor
 public class BasketComparisonResponse {
     private List<BasketItemInfo> basketItems;
-    private List<StoreComparisonResult> storeComparisons;
+    private List<StoreComparisonResult> storeComparisons; // Best topK stores when requested
+    private int comparedStoreCount;
     private String cheapestStoreId;
     private String cheapestStoreName;
     private Double lowestTotal;
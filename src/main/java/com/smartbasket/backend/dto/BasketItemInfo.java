@@ -13,4 +13,5 @@ public class BasketItemInfo {
     private String referenceItemId;
     private String name;
     private String category;
+    private int quantity;
 }
@@ -0,0 +1,29 @@
+package com.smartbasket.backend.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketOptimizationRequest {
+    @NotEmpty(message = "Basket must contain at least one item")
+    private List<String> referenceItemIds;
+
+    // Most stores the customer is willing to visit (defaults to 2)
+    @Min(value = 1, message = "maxStores must be at least 1")
+    @Max(value = 10, message = "maxStores must be at most 10")
+    private Integer maxStores;
+
+    // Cost of each store visited beyond the first, e.g. time or fuel (defaults to 0)
+    @Min(value = 0, message = "extraStoreCost must be non-negative")
+    private Double extraStoreCost;
+}
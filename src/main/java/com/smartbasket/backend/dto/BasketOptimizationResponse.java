@@ -0,0 +1,29 @@
+package com.smartbasket.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketOptimizationResponse {
+    private List<BasketItemInfo> basketItems;
+    private List<StorePlan> storePlans;
+    private List<String> missingItems; // Not sold by any chosen store
+    private Double itemsTotal;
+    private Double extraStoreCosts;
+    private Double totalCost; // itemsTotal + extraStoreCosts
+    private String currency;
+
+    // Best single store covering as many items, for comparison
+    private String bestSingleStoreId;
+    private Double bestSingleStoreTotal;
+    private Double savings;
+
+    private boolean optimal; // False when the time budget ran out before optimality was proven
+}
@@ -21,6 +21,9 @@ public class BatchPriceUpdateRequest {
     @NotEmpty(message = "At least one price entry is required")
     @Valid
     private List<PriceEntry> prices;
+
+    // When true, entries matching the cached price are not written, only marked as seen
+    private Boolean skipUnchanged;
     
     @Data
     @Builder
@@ -15,6 +15,7 @@ public class BatchPriceUpdateResponse {
     private int totalRequested;
     private int successCount;
     private int failureCount;
+    private int unchangedCount; // Successful entries skipped because the price did not change
     private List<PriceUpdateResult> results;
 
     @Data
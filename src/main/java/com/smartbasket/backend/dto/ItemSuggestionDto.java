@@ -0,0 +1,20 @@
+package com.smartbasket.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Minimal reference item projection for typeahead suggestions
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSuggestionDto {
+    private String id;
+    private String name;
+    private String nameAr;
+    private String thumbnail; // First image, if any
+}
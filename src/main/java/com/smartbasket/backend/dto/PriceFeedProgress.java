@@ -0,0 +1,28 @@
+package com.smartbasket.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One NDJSON line of the streaming price feed response: a result per chunk, then a final summary
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceFeedProgress {
+    private String type; // "chunk", "summary" or "error"
+    private Integer chunk;
+    private long rowsProcessed;
+    private int successCount;
+    private int failureCount;
+    private int unchangedCount;
+    private List<BatchPriceUpdateResponse.PriceUpdateResult> results;
+    private String message;
+}
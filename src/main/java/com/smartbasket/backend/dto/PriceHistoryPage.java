@@ -0,0 +1,18 @@
+package com.smartbasket.backend.dto;
+
+import com.smartbasket.backend.model.StorePrice;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceHistoryPage {
+    private List<StorePrice> items; // Newest first
+    private String nextCursor; // Pass back as cursor to get the next (older) page; null on the last page
+}
@@ -0,0 +1,36 @@
+package com.smartbasket.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Price samples of one hour or day folded into min / max / last, for charts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceHistoryPoint {
+
+    /**
+     * Period a point covers
+     */
+    public enum Interval {
+        HOURS, DAYS;
+
+        public ChronoUnit unit() {
+            return ChronoUnit.valueOf(name());
+        }
+    }
+
+    private Instant periodStart;
+    private Double min;
+    private Double max;
+    private Double last;
+    private int count;
+}
@@ -18,7 +18,7 @@ public class StoreComparisonResult {
     private Double totalPrice;
     private String currency;
     private boolean allItemsAvailable;
-    private List<StoreItemPriceInfo> itemPrices;
+    private List<StoreItemPriceInfo> itemPrices; // Omitted for summaryOnly requests
     private List<String> missingItems;
     private int availableItemCount;
     private int totalItemCount;
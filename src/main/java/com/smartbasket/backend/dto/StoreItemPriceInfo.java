@@ -15,7 +15,9 @@ public class StoreItemPriceInfo {
     private String storeItemId;
     private String storeItemName;
     private String brand;
-    private Double price;
+    private Double price; // Unit price
+    private int quantity;
+    private Double lineTotal; // price x quantity
     private String currency;
     private boolean isPromotion;
     private boolean available;
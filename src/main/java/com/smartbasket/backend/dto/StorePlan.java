@@ -0,0 +1,23 @@
+package com.smartbasket.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One store of an optimized basket and the items to buy there
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorePlan {
+    private String storeId;
+    private String storeName;
+    private String storeLogoUrl;
+    private Double subtotal;
+    private List<StoreItemPriceInfo> itemPrices;
+}
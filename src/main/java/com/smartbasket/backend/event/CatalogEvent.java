@@ -0,0 +1,58 @@
+package com.smartbasket.backend.event;
+
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+
+/**
+ * A change to the catalog, published on the {@link CatalogEventBus} after it was written to Mongo.
+ * Store item and price events carry the written store item, which subscribers must not modify.
+ *
+ * @param id              id of the changed document (store item, reference item or store)
+ * @param referenceItemId reference item affected, when there is one
+ * @param storeId         store affected, when there is one
+ */
+public record CatalogEvent(Type type, String id, String referenceItemId, String storeId, StoreItem storeItem) {
+
+    public enum Type {
+        PRICE_CHANGED,
+        STORE_ITEM_SAVED,
+        STORE_ITEM_DELETED,
+        REFERENCE_ITEM_SAVED,
+        REFERENCE_ITEM_DELETED,
+        STORE_SAVED,
+        STORE_DELETED
+    }
+
+    public static CatalogEvent priceChanged(StoreItem storeItem) {
+        return ofStoreItem(Type.PRICE_CHANGED, storeItem);
+    }
+
+    public static CatalogEvent storeItemSaved(StoreItem storeItem) {
+        return ofStoreItem(Type.STORE_ITEM_SAVED, storeItem);
+    }
+
+    public static CatalogEvent storeItemDeleted(StoreItem storeItem) {
+        return ofStoreItem(Type.STORE_ITEM_DELETED, storeItem);
+    }
+
+    public static CatalogEvent referenceItemSaved(ReferenceItem referenceItem) {
+        return new CatalogEvent(Type.REFERENCE_ITEM_SAVED, referenceItem.getId(), referenceItem.getId(), null, null);
+    }
+
+    public static CatalogEvent referenceItemDeleted(String referenceItemId) {
+        return new CatalogEvent(Type.REFERENCE_ITEM_DELETED, referenceItemId, referenceItemId, null, null);
+    }
+
+    public static CatalogEvent storeSaved(Store store) {
+        return new CatalogEvent(Type.STORE_SAVED, store.getId(), null, store.getId(), null);
+    }
+
+    public static CatalogEvent storeDeleted(String storeId) {
+        return new CatalogEvent(Type.STORE_DELETED, storeId, null, storeId, null);
+    }
+
+    private static CatalogEvent ofStoreItem(Type type, StoreItem storeItem) {
+        return new CatalogEvent(type, storeItem.getId(), storeItem.getReferenceItemId(), storeItem.getStoreId(), storeItem);
+    }
+}
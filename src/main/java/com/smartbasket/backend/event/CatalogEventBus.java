@@ -0,0 +1,205 @@
+package com.smartbasket.backend.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process catalog event stream: a ring buffer shared by all subscribers, each reading it at
+ * its own pace on its own thread and receiving whatever has accumulated as one batch.
+ * <p>
+ * Publishers claim a sequence number, write the slot and mark it published; there is no lock on
+ * either side. A publisher that would overwrite a slot the slowest subscriber has not read yet
+ * waits for it (time spent waiting is in events.publish.blocked), so a slow subscriber slows
+ * writers down instead of losing events. Lag per subscriber is in events.consumer.lag.
+ */
+@Slf4j
+@Component
+public class CatalogEventBus {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+    private final int mask;
+    private final CatalogEvent[] slots;
+    // Sequence last published into each slot; a consumer may read slot i for sequence s once published[i] == s
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+
+    private final Map<CatalogEvent.Type, Counter> publishedCounters = new EnumMap<>(CatalogEvent.Type.class);
+    private final Timer publishBlocked;
+
+    public CatalogEventBus(MeterRegistry meterRegistry,
+                           @Value("${smartbasket.events.ring-size:8192}") int ringSize,
+                           @Value("${smartbasket.events.max-batch-size:256}") int maxBatchSize) {
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        int capacity = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new CatalogEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        for (CatalogEvent.Type type : CatalogEvent.Type.values()) {
+            publishedCounters.put(type, Counter.builder("events.published")
+                    .description("Catalog events published")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+        this.publishBlocked = Timer.builder("events.publish.blocked")
+                .description("Time publishers waited for the slowest subscriber to free ring slots")
+                .register(meterRegistry);
+        Gauge.builder("events.ring.used", this, bus -> bus.cursor.get() - bus.minimumSequence(bus.cursor.get()))
+                .description("Ring slots holding events not yet read by every subscriber")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a subscriber thread named "events-{name}". It receives events published from now on.
+     */
+    public void subscribe(String name, CatalogEventListener listener) {
+        Consumer consumer = new Consumer(name, listener, cursor.get());
+        consumers.add(consumer);
+        consumer.start();
+    }
+
+    /**
+     * Append an event, blocking while the ring is full
+     */
+    public void publish(CatalogEvent event) {
+        long sequence = cursor.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > minimumSequence(sequence - 1)) {
+            long start = System.nanoTime();
+            while (wrapPoint > minimumSequence(sequence - 1)) {
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+            publishBlocked.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        int index = (int) (sequence & mask);
+        slots[index] = event;
+        published.set(index, sequence);
+        publishedCounters.get(event.type()).increment();
+    }
+
+    /**
+     * Wait until every subscriber has handled everything published so far
+     *
+     * @return false if they had not caught up within the timeout
+     */
+    public boolean awaitDrained(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long target = cursor.get();
+        while (minimumSequence(target) < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(MAX_IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Consumer consumer : consumers) {
+            consumer.interrupt();
+        }
+    }
+
+    /**
+     * Sequence read by the slowest subscriber, or fallback when there are none
+     */
+    private long minimumSequence(long fallback) {
+        long minimum = fallback;
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    private final class Consumer extends Thread {
+        private final CatalogEventListener listener;
+        private final AtomicLong sequence;
+        private final DistributionSummary batchSizes;
+        private final Counter errors;
+
+        Consumer(String name, CatalogEventListener listener, long start) {
+            super("events-" + name);
+            setDaemon(true);
+            this.listener = listener;
+            this.sequence = new AtomicLong(start);
+            this.batchSizes = DistributionSummary.builder("events.consumer.batch.size")
+                    .description("Events handed to a subscriber per call")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            this.errors = Counter.builder("events.consumer.errors")
+                    .description("Event batches a subscriber failed to handle")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            Gauge.builder("events.consumer.lag", this, consumer -> cursor.get() - consumer.sequence.get())
+                    .description("Events published but not yet handled by the subscriber")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void run() {
+            long idlePark = IDLE_PARK_NANOS;
+            try {
+                while (!isInterrupted()) {
+                    long next = sequence.get() + 1;
+                    long last = next - 1;
+                    long limit = Math.min(cursor.get(), next + maxBatchSize - 1);
+                    while (last < limit && published.get((int) ((last + 1) & mask)) == last + 1) {
+                        last++;
+                    }
+                    if (last < next) {
+                        LockSupport.parkNanos(idlePark);
+                        idlePark = Math.min(idlePark * 2, MAX_IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    idlePark = IDLE_PARK_NANOS;
+
+                    CatalogEvent[] batch = new CatalogEvent[(int) (last - next + 1)];
+                    for (long s = next; s <= last; s++) {
+                        batch[(int) (s - next)] = slots[(int) (s & mask)];
+                    }
+                    batchSizes.record(batch.length);
+                    try {
+                        listener.onEvents(Arrays.asList(batch));
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                        log.warn("Subscriber {} failed on {} events: {}", getName(), batch.length, e.getMessage());
+                    }
+                    sequence.set(last);
+                }
+            } finally {
+                // A stopped subscriber must not hold publishers back
+                consumers.remove(this);
+            }
+        }
+    }
+}
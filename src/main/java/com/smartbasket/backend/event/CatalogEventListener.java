@@ -0,0 +1,13 @@
+package com.smartbasket.backend.event;
+
+import java.util.List;
+
+/**
+ * Subscriber of the {@link CatalogEventBus}. Called on the subscriber's own thread with every event
+ * published since the previous call (up to the bus's max batch size), in publication order.
+ */
+@FunctionalInterface
+public interface CatalogEventListener {
+
+    void onEvents(List<CatalogEvent> events);
+}
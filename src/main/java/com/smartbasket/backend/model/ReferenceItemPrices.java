@@ -0,0 +1,47 @@
+package com.smartbasket.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Basket-ready prices of one reference item: one offer per store item at a store the item is
+ * assigned to, with the effective price and currency already resolved.
+ * Derived from store_items and reference_items; see ReferenceItemPriceView.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "reference_item_prices")
+public class ReferenceItemPrices {
+    @Id
+    private String id; // Reference item id
+
+    @Builder.Default
+    private List<Offer> offers = new ArrayList<>();
+
+    private Instant updatedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Offer {
+        private String storeId;
+        private String storeItemId;
+        private String name;
+        private String brand;
+        private Double price; // Discount price falling back to original price; null when unpriced
+        private String currency;
+        private boolean promo;
+        private Instant lastPriceUpdate; // Of the store item; orders price patches applied by different pods
+    }
+}
@@ -30,6 +30,8 @@ public class StoreItem {
     private String name; // Store specific name
     private String nameAr; // Arabic store specific name
     private String brand;
+
+    @Indexed(sparse = true)
     private String barcode;
     
     // Multiple images support
@@ -41,5 +43,7 @@ public class StoreItem {
     private Double originalPrice; // For discount calculation
     private String currency;
     private Boolean isPromotion;
+    @Indexed(sparse = true) // other pods read the store items repriced since their last poll
     private Instant lastPriceUpdate;
+    private Instant lastSeen; // Last time a price feed reported this item, changed or not
 }
@@ -5,7 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
 
@@ -14,11 +14,12 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "store_prices")
+// _id breaks timestamp ties, so history pages sorted by (timestamp, _id) are read straight off the index
+@CompoundIndex(name = "storeItemId_timestamp_id", def = "{'storeItemId': 1, 'timestamp': -1, '_id': -1}")
 public class StorePrice {
     @Id
     private String id;
 
-    @Indexed
     private String storeItemId;
 
     private Double price;
@@ -0,0 +1,52 @@
+package com.smartbasket.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Price history of one store item for one day or month, stored as parallel arrays
+ * (sample i is timestamps[i], prices[i], originalPrices[i], promotions[i], currencies[i]).
+ * Buckets filled by compaction also carry a "sources" array of the compaction batches already
+ * appended; it is only read by the append itself, so it is not mapped here.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "store_price_buckets")
+// One bucket per store item, granularity and start, so concurrent upserts cannot create twins.
+// Granularity is part of the key because the day bucket of the 1st starts with its month bucket.
+@CompoundIndex(name = "storeItemId_bucketStart_granularity", unique = true,
+        def = "{'storeItemId': 1, 'bucketStart': -1, 'granularity': 1}")
+public class StorePriceBucket {
+
+    public enum Granularity { DAY, MONTH }
+
+    @Id
+    private String id;
+
+    private String storeItemId;
+    private Granularity granularity;
+    private Instant bucketStart;
+    private int count;
+
+    @Builder.Default
+    private List<Instant> timestamps = new ArrayList<>();
+    @Builder.Default
+    private List<Double> prices = new ArrayList<>();
+    @Builder.Default
+    private List<Double> originalPrices = new ArrayList<>();
+    @Builder.Default
+    private List<Boolean> promotions = new ArrayList<>();
+    @Builder.Default
+    private List<String> currencies = new ArrayList<>();
+}
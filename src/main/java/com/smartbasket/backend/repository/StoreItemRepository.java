@@ -2,14 +2,24 @@ package com.smartbasket.backend.repository;
 
 import com.smartbasket.backend.model.StoreItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StoreItemRepository extends MongoRepository<StoreItem, String> {
     List<StoreItem> findByReferenceItemId(String referenceItemId);
     List<StoreItem> findByStoreId(String storeId);
+
+    @Query(value = "{ 'barcode': ?0 }", fields = "{ 'images': 0 }")
+    List<StoreItem> findByBarcode(String barcode);
+
+    // Bulk fetch for basket comparison: one $in query, without fields the comparison never reads
+    @Query(value = "{ 'referenceItemId': { $in: ?0 }, 'storeId': { $in: ?1 } }",
+            fields = "{ 'images': 0, 'nameAr': 0, 'barcode': 0 }")
+    List<StoreItem> findForComparison(Collection<String> referenceItemIds, Collection<String> storeIds);
     
     // For cascade deletion when stores are unassigned from a reference item
     void deleteByReferenceItemIdAndStoreIdIn(String referenceItemId, List<String> storeIds);
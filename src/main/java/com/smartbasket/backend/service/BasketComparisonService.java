@@ -1,191 +1,345 @@
 package com.smartbasket.backend.service;
 
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.cache.SuggestionIndex;
 import com.smartbasket.backend.dto.*;
 import com.smartbasket.backend.model.Store;
 import com.smartbasket.backend.model.StoreItem;
 import com.smartbasket.backend.model.StorePrice;
 import com.smartbasket.backend.model.ReferenceItem;
-import com.smartbasket.backend.repository.StoreItemRepository;
 import com.smartbasket.backend.repository.StorePriceRepository;
 import com.smartbasket.backend.repository.StoreRepository;
 import com.smartbasket.backend.repository.ReferenceItemRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
 
 @Service
-@RequiredArgsConstructor
 public class BasketComparisonService {
 
     private final ReferenceItemRepository referenceItemRepository;
     private final StoreRepository storeRepository;
-    private final StoreItemRepository storeItemRepository;
     private final StorePriceRepository storePriceRepository;
+    private final BasketPriceLoader basketPriceLoader;
+    private final SuggestionIndex suggestionIndex;
+    private final BasketResultCache basketResultCache;
+    private final ReferenceDataCache referenceDataCache;
+    private final FanOut fanOut;
+    private final MeterRegistry meterRegistry;
+    private final Duration loadDeadline;
+    private final Timer compareTimer;
+    private final DistributionSummary itemsPerBasket;
+    private final DistributionSummary storesPerBasket;
 
     private static final String DEFAULT_CURRENCY = "JOD";
 
+    public BasketComparisonService(
+            ReferenceItemRepository referenceItemRepository,
+            StoreRepository storeRepository,
+            StorePriceRepository storePriceRepository,
+            BasketPriceLoader basketPriceLoader,
+            SuggestionIndex suggestionIndex,
+            BasketResultCache basketResultCache,
+            ReferenceDataCache referenceDataCache,
+            FanOut fanOut,
+            MeterRegistry meterRegistry,
+            @Value("${smartbasket.basket.compare.deadline:2s}") Duration loadDeadline) {
+        this.referenceItemRepository = referenceItemRepository;
+        this.storeRepository = storeRepository;
+        this.storePriceRepository = storePriceRepository;
+        this.basketPriceLoader = basketPriceLoader;
+        this.suggestionIndex = suggestionIndex;
+        this.basketResultCache = basketResultCache;
+        this.referenceDataCache = referenceDataCache;
+        this.fanOut = fanOut;
+        this.meterRegistry = meterRegistry;
+        this.loadDeadline = loadDeadline;
+        this.compareTimer = Timer.builder("basket.compare")
+                .description("Time to compare a basket across stores, cache hits included")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.itemsPerBasket = DistributionSummary.builder("basket.compare.items")
+                .description("Distinct items per compared basket")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.storesPerBasket = DistributionSummary.builder("basket.compare.stores")
+                .description("Active stores a basket was priced against")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compare the basket across all active stores. Results for the same basket are served from
+     * {@link BasketResultCache} until a price, item or store they depend on changes.
+     * Timed as basket.compare, with the basket size in basket.compare.items.
+     */
     public BasketComparisonResponse compareBasket(BasketComparisonRequest request) {
-        // 1. Get all ACTIVE reference items in the basket
-        List<ReferenceItem> basketReferenceItems = referenceItemRepository
-                .findAllById(request.getReferenceItemIds())
-                .stream()
-                .filter(ReferenceItem::isActive) // Exclude inactive items
-                .toList();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, Integer> requestedQuantities = basketQuantities(request);
+        boolean summaryOnly = Boolean.TRUE.equals(request.getSummaryOnly());
+        itemsPerBasket.record(requestedQuantities.size());
+
+        BasketComparisonResponse response = basketResultCache.get(
+                BasketResultCache.key(requestedQuantities, summaryOnly, request.getTopK()),
+                requestedQuantities.keySet(),
+                () -> computeComparison(requestedQuantities, summaryOnly, request.getTopK()));
+        // Only the ids that resolved to active items count towards suggestions
+        suggestionIndex.recordBasket(response.getBasketItems().stream()
+                .map(BasketItemInfo::getReferenceItemId)
+                .toList());
+        sample.stop(compareTimer);
+        return response;
+    }
+
+    private BasketComparisonResponse computeComparison(Map<String, Integer> requestedQuantities, boolean summaryOnly,
+                                                       Integer topK) {
+        long deadline = System.nanoTime() + loadDeadline.toNanos();
+
+        // 1-2. ACTIVE reference items in the basket and all active stores, from the snapshot
+        //      or loaded concurrently from Mongo until it is ready
+        List<ReferenceItem> basketReferenceItems;
+        List<Store> activeStores;
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            basketReferenceItems = snapshot.referenceItems(requestedQuantities.keySet()).stream()
+                    .filter(ReferenceItem::isActive)
+                    .toList();
+            activeStores = snapshot.activeStores();
+        } else {
+            List<Object> loaded = fanOut.all(List.<Callable<Object>>of(
+                    () -> referenceItemRepository
+                            .findAllById(requestedQuantities.keySet())
+                            .stream()
+                            .filter(ReferenceItem::isActive) // Exclude inactive items
+                            .toList(),
+                    storeRepository::findByActiveTrue), deadline);
+            @SuppressWarnings("unchecked")
+            List<ReferenceItem> loadedItems = (List<ReferenceItem>) loaded.get(0);
+            @SuppressWarnings("unchecked")
+            List<Store> loadedStores = (List<Store>) loaded.get(1);
+            basketReferenceItems = loadedItems;
+            activeStores = loadedStores;
+        }
+
+        storesPerBasket.record(activeStores.size());
+
+        // 3. Resolve store items for every (store, basket item) pair
+        Map<String, Map<String, StoreItem>> storeItemsByStore =
+                basketPriceLoader.loadStoreItems(activeStores, basketReferenceItems, deadline);
+
+        return assemble(basketReferenceItems, requestedQuantities, activeStores, storeItemsByStore, summaryOnly, topK);
+    }
+
+    /**
+     * Build the comparison from already loaded data; pure computation, no I/O
+     *
+     * @param basketReferenceItems active basket items
+     * @param storeItemsByStore    store items keyed by storeId then referenceItemId
+     */
+    public BasketComparisonResponse assemble(List<ReferenceItem> basketReferenceItems, Map<String, Integer> requestedQuantities,
+                                             List<Store> activeStores, Map<String, Map<String, StoreItem>> storeItemsByStore,
+                                             boolean summaryOnly, Integer topK) {
+        int[] quantities = basketReferenceItems.stream()
+                .mapToInt(item -> requestedQuantities.get(item.getId()))
+                .toArray();
 
         // Build basket item info list
-        List<BasketItemInfo> basketItemInfos = basketReferenceItems.stream()
-                .map(item -> BasketItemInfo.builder()
-                        .referenceItemId(item.getId())
-                        .name(item.getName())
-                        .category(item.getCategory())
-                        .build())
-                .collect(Collectors.toList());
-
-        // 2. Get all active stores
-        List<Store> activeStores = storeRepository.findByActiveTrue();
-
-        // 3. For each store, calculate the basket total
-        List<StoreComparisonResult> storeResults = new ArrayList<>();
-
-        for (Store store : activeStores) {
-            StoreComparisonResult result = calculateStoreTotal(store, basketReferenceItems);
-            storeResults.add(result);
+        List<BasketItemInfo> basketItemInfos = new ArrayList<>(basketReferenceItems.size());
+        for (int i = 0; i < basketReferenceItems.size(); i++) {
+            ReferenceItem item = basketReferenceItems.get(i);
+            basketItemInfos.add(BasketItemInfo.builder()
+                    .referenceItemId(item.getId())
+                    .name(item.getName())
+                    .category(item.getCategory())
+                    .quantity(quantities[i])
+                    .build());
+        }
+
+        // 4. Total every store at once over primitive arrays, then build the per-store results
+        int storeCount = activeStores.size();
+        int itemCount = basketReferenceItems.size();
+        double[] unitPrices = new double[storeCount * itemCount];
+        double[] missing = new double[storeCount * itemCount];
+        for (int s = 0; s < storeCount; s++) {
+            Store store = activeStores.get(s);
+            Map<String, StoreItem> storeItemsByRef = storeItemsByStore.getOrDefault(store.getId(), Map.of());
+            for (int i = 0; i < itemCount; i++) {
+                ReferenceItem refItem = basketReferenceItems.get(i);
+                StoreItem storeItem = BasketPriceLoader.isAssignedToStore(refItem, store)
+                        ? storeItemsByRef.get(refItem.getId())
+                        : null;
+                Double price = storeItem != null ? BasketPriceLoader.effectivePrice(storeItem) : null;
+                if (price != null) {
+                    unitPrices[s * itemCount + i] = price;
+                } else {
+                    missing[s * itemCount + i] = 1.0;
+                }
+            }
+        }
+
+        double[] weights = new double[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            weights[i] = quantities[i];
+        }
+        double[] totals = new double[storeCount];
+        double[] missingCounts = new double[storeCount];
+        computeTotals(unitPrices, missing, weights, storeCount, itemCount, totals, missingCounts);
+
+        // 5. Rank by: 1) Number of missing items (fewer is better), 2) Then by price (cheapest first),
+        //    keeping only the best topK stores in a bounded heap (ties keep store order)
+        Comparator<Integer> ranking = Comparator
+                .comparingDouble((Integer s) -> missingCounts[s])
+                .thenComparingDouble(s -> totals[s])
+                .thenComparingInt(s -> s);
+        int keep = topK != null ? Math.min(topK, storeCount) : storeCount;
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(keep, 1), ranking.reversed());
+        for (int s = 0; s < storeCount && keep > 0; s++) {
+            if (best.size() < keep) {
+                best.add(s);
+            } else if (ranking.compare(s, best.peek()) < 0) {
+                best.poll();
+                best.add(s);
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+
+        // Breakdowns are only built for the stores that are returned
+        List<StoreComparisonResult> storeResults = new ArrayList<>(ranked.size());
+        for (int s : ranked) {
+            Store store = activeStores.get(s);
+            List<String> missingItems = new ArrayList<>((int) missingCounts[s]);
+            for (int i = 0; i < itemCount && missingCounts[s] > 0; i++) {
+                if (missing[s * itemCount + i] != 0) {
+                    missingItems.add(basketReferenceItems.get(i).getName());
+                }
+            }
+            storeResults.add(StoreComparisonResult.builder()
+                    .storeId(store.getId())
+                    .storeName(store.getName())
+                    .storeLogoUrl(store.getLogoUrl())
+                    .totalPrice(totals[s])
+                    .currency(DEFAULT_CURRENCY)
+                    .allItemsAvailable(missingItems.isEmpty())
+                    .itemPrices(summaryOnly ? null : buildItemPrices(store, basketReferenceItems, quantities,
+                            storeItemsByStore.getOrDefault(store.getId(), Map.of())))
+                    .missingItems(missingItems)
+                    .availableItemCount(itemCount - missingItems.size())
+                    .totalItemCount(itemCount)
+                    .build());
         }
 
-        // 4. Sort by: 1) Number of missing items (fewer is better), 2) Then by price (cheapest first)
-        storeResults.sort((a, b) -> {
-            // First: Sort by number of missing items (stores with fewer missing items come first)
-            int missingComparison = Integer.compare(a.getMissingItems().size(), b.getMissingItems().size());
-            if (missingComparison != 0) {
-                return missingComparison;
+        // 6. Calculate savings and find cheapest over all stores, not only the returned ones
+        int cheapest = -1;
+        double lowestTotal = 0.0;
+        double highestTotal = 0.0;
+        for (int s = 0; s < storeCount; s++) {
+            if (missingCounts[s] != 0) {
+                continue;
+            }
+            if (cheapest < 0 || totals[s] < lowestTotal) {
+                cheapest = s;
+                lowestTotal = totals[s];
             }
-            // Second: If same number of missing items, sort by price (cheapest first)
-            return Double.compare(a.getTotalPrice(), b.getTotalPrice());
-        });
-
-        // 5. Calculate savings and find cheapest
-        Double lowestTotal = storeResults.stream()
-                .filter(StoreComparisonResult::isAllItemsAvailable)
-                .mapToDouble(StoreComparisonResult::getTotalPrice)
-                .min()
-                .orElse(0.0);
-
-        Double highestTotal = storeResults.stream()
-                .filter(StoreComparisonResult::isAllItemsAvailable)
-                .mapToDouble(StoreComparisonResult::getTotalPrice)
-                .max()
-                .orElse(0.0);
-
-        StoreComparisonResult cheapest = storeResults.stream()
-                .filter(StoreComparisonResult::isAllItemsAvailable)
-                .min(Comparator.comparingDouble(StoreComparisonResult::getTotalPrice))
-                .orElse(null);
+            highestTotal = Math.max(highestTotal, totals[s]);
+        }
 
         return BasketComparisonResponse.builder()
                 .basketItems(basketItemInfos)
                 .storeComparisons(storeResults)
-                .cheapestStoreId(cheapest != null ? cheapest.getStoreId() : null)
-                .cheapestStoreName(cheapest != null ? cheapest.getStoreName() : null)
+                .comparedStoreCount(storeCount)
+                .cheapestStoreId(cheapest >= 0 ? activeStores.get(cheapest).getId() : null)
+                .cheapestStoreName(cheapest >= 0 ? activeStores.get(cheapest).getName() : null)
                 .lowestTotal(lowestTotal)
                 .highestTotal(highestTotal)
                 .potentialSavings(highestTotal - lowestTotal)
                 .build();
     }
 
-    private StoreComparisonResult calculateStoreTotal(Store store, List<ReferenceItem> basketItems) {
-        List<StoreItemPriceInfo> itemPrices = new ArrayList<>();
-        List<String> missingItems = new ArrayList<>();
-        double totalPrice = 0.0;
-
-        for (ReferenceItem refItem : basketItems) {
-            // First check if this item is assigned to this store
-            // Use specificStoreIds (admin-defined whitelist) when availableInAllStores is false
-            boolean isAssignedToStore = refItem.isAvailableInAllStores() || 
-                    (refItem.getSpecificStoreIds() != null && refItem.getSpecificStoreIds().contains(store.getId()));
-            
-            if (!isAssignedToStore) {
-                // Item is not assigned to this store - mark as missing
-                missingItems.add(refItem.getName());
-                itemPrices.add(StoreItemPriceInfo.builder()
-                        .referenceItemId(refItem.getId())
-                        .referenceItemName(refItem.getName())
-                        .available(false)
-                        .price(0.0)
-                        .currency(DEFAULT_CURRENCY)
-                        .build());
-                continue;
+    /**
+     * totals[s] = sum of unitPrices[s][i] * weights[i] and missingCounts[s] = sum of missing[s][i],
+     * over store-major flat arrays. The inner loops are branch-free over primitive doubles so the
+     * JIT can unroll and vectorize them.
+     */
+    static void computeTotals(double[] unitPrices, double[] missing, double[] weights,
+                              int storeCount, int itemCount, double[] totals, double[] missingCounts) {
+        for (int s = 0; s < storeCount; s++) {
+            int offset = s * itemCount;
+            double total = 0.0;
+            double missingCount = 0.0;
+            for (int i = 0; i < itemCount; i++) {
+                total += unitPrices[offset + i] * weights[i];
+                missingCount += missing[offset + i];
             }
-            
-            // Find the store item for this reference item at this store
-            List<StoreItem> storeItems = storeItemRepository.findByReferenceItemId(refItem.getId())
-                    .stream()
-                    .filter(si -> si.getStoreId().equals(store.getId()))
-                    .toList();
+            totals[s] = total;
+            missingCounts[s] = missingCount;
+        }
+    }
 
-            if (storeItems.isEmpty()) {
-                // Item not available at this store
-                missingItems.add(refItem.getName());
-                itemPrices.add(StoreItemPriceInfo.builder()
-                        .referenceItemId(refItem.getId())
-                        .referenceItemName(refItem.getName())
-                        .available(false)
-                        .price(0.0)
-                        .currency(DEFAULT_CURRENCY)
-                        .build());
-            } else {
-                // Use cached price from StoreItem (no need to query StorePrice table)
-                StoreItem storeItem = storeItems.get(0);
-                
-                // Use discount price, fallback to original price if not set
-                Double effectivePrice = storeItem.getDiscountPrice();
-                if (effectivePrice == null || effectivePrice <= 0) {
-                    effectivePrice = storeItem.getOriginalPrice();
-                }
-                
-                if (effectivePrice != null && effectivePrice > 0) {
-                    totalPrice += effectivePrice;
-
-                    itemPrices.add(StoreItemPriceInfo.builder()
-                            .referenceItemId(refItem.getId())
-                            .referenceItemName(refItem.getName())
-                            .storeItemId(storeItem.getId())
-                            .storeItemName(storeItem.getName())
-                            .brand(storeItem.getBrand())
-                            .price(effectivePrice)
-                            .currency(storeItem.getCurrency() != null ? storeItem.getCurrency() : DEFAULT_CURRENCY)
-                            .isPromotion(storeItem.getIsPromotion() != null && storeItem.getIsPromotion())
-                            .available(true)
-                            .build());
-                } else {
-                    // No price data available
-                    missingItems.add(refItem.getName());
-                    itemPrices.add(StoreItemPriceInfo.builder()
-                            .referenceItemId(refItem.getId())
-                            .referenceItemName(refItem.getName())
-                            .storeItemId(storeItem.getId())
-                            .storeItemName(storeItem.getName())
-                            .brand(storeItem.getBrand())
-                            .available(false)
-                            .price(0.0)
-                            .currency(DEFAULT_CURRENCY)
-                            .build());
-                }
+    /**
+     * Quantity per requested item: item lines for the same item add up, and referenceItemIds
+     * not already listed as a line count once
+     */
+    public static Map<String, Integer> basketQuantities(BasketComparisonRequest request) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        if (request.getItems() != null) {
+            for (BasketComparisonRequest.BasketLine line : request.getItems()) {
+                quantities.merge(line.getReferenceItemId(), line.getQuantity(), Integer::sum);
             }
         }
+        if (request.getReferenceItemIds() != null) {
+            request.getReferenceItemIds().forEach(id -> quantities.putIfAbsent(id, 1));
+        }
+        return quantities;
+    }
 
-        return StoreComparisonResult.builder()
-                .storeId(store.getId())
-                .storeName(store.getName())
-                .storeLogoUrl(store.getLogoUrl())
-                .totalPrice(totalPrice)
-                .currency(DEFAULT_CURRENCY)
-                .allItemsAvailable(missingItems.isEmpty())
-                .itemPrices(itemPrices)
-                .missingItems(missingItems)
-                .availableItemCount(basketItems.size() - missingItems.size())
-                .totalItemCount(basketItems.size())
-                .build();
+    /**
+     * Per-item breakdown of one store's basket
+     */
+    private List<StoreItemPriceInfo> buildItemPrices(Store store, List<ReferenceItem> basketItems, int[] quantities,
+                                                     Map<String, StoreItem> storeItemsByRef) {
+        List<StoreItemPriceInfo> itemPrices = new ArrayList<>(basketItems.size());
+
+        for (int i = 0; i < basketItems.size(); i++) {
+            ReferenceItem refItem = basketItems.get(i);
+            // Items not assigned to this store (admin whitelist) count as missing
+            StoreItem storeItem = BasketPriceLoader.isAssignedToStore(refItem, store)
+                    ? storeItemsByRef.get(refItem.getId())
+                    : null;
+            // Use cached price from StoreItem (no need to query StorePrice table)
+            Double effectivePrice = storeItem != null ? BasketPriceLoader.effectivePrice(storeItem) : null;
+
+            StoreItemPriceInfo.StoreItemPriceInfoBuilder info = StoreItemPriceInfo.builder()
+                    .referenceItemId(refItem.getId())
+                    .referenceItemName(refItem.getName())
+                    .quantity(quantities[i]);
+            if (storeItem != null) {
+                info.storeItemId(storeItem.getId())
+                        .storeItemName(storeItem.getName())
+                        .brand(storeItem.getBrand());
+            }
+            if (effectivePrice != null) {
+                info.price(effectivePrice)
+                        .lineTotal(effectivePrice * quantities[i])
+                        .currency(storeItem.getCurrency() != null ? storeItem.getCurrency() : DEFAULT_CURRENCY)
+                        .isPromotion(storeItem.getIsPromotion() != null && storeItem.getIsPromotion())
+                        .available(true);
+            } else {
+                info.price(0.0)
+                        .lineTotal(0.0)
+                        .currency(DEFAULT_CURRENCY)
+                        .available(false);
+            }
+            itemPrices.add(info.build());
+        }
+        return itemPrices;
     }
 }
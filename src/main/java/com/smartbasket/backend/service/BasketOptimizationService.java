@@ -0,0 +1,172 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.cache.SuggestionIndex;
+import com.smartbasket.backend.dto.*;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.repository.ReferenceItemRepository;
+import com.smartbasket.backend.repository.StoreRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans the cheapest way to buy a basket from at most K stores (see {@link BasketOptimizer}).
+ * Solve time is recorded in the basket.optimize timer, tagged by whether the plan was proven optimal.
+ */
+@Service
+public class BasketOptimizationService {
+
+    private static final String DEFAULT_CURRENCY = "JOD";
+    private static final int DEFAULT_MAX_STORES = 2;
+
+    private final ReferenceItemRepository referenceItemRepository;
+    private final StoreRepository storeRepository;
+    private final BasketPriceLoader basketPriceLoader;
+    private final ReferenceDataCache referenceDataCache;
+    private final SuggestionIndex suggestionIndex;
+    private final Duration timeBudget;
+    private final Timer optimalTimer;
+    private final Timer bestEffortTimer;
+
+    public BasketOptimizationService(
+            ReferenceItemRepository referenceItemRepository,
+            StoreRepository storeRepository,
+            BasketPriceLoader basketPriceLoader,
+            ReferenceDataCache referenceDataCache,
+            SuggestionIndex suggestionIndex,
+            MeterRegistry meterRegistry,
+            @Value("${smartbasket.basket.optimize.time-budget:200ms}") Duration timeBudget) {
+        this.referenceItemRepository = referenceItemRepository;
+        this.storeRepository = storeRepository;
+        this.basketPriceLoader = basketPriceLoader;
+        this.referenceDataCache = referenceDataCache;
+        this.suggestionIndex = suggestionIndex;
+        this.timeBudget = timeBudget;
+        this.optimalTimer = optimizeTimer(meterRegistry, true);
+        this.bestEffortTimer = optimizeTimer(meterRegistry, false);
+    }
+
+    private static Timer optimizeTimer(MeterRegistry meterRegistry, boolean optimal) {
+        return Timer.builder("basket.optimize")
+                .description("Time to plan a multi-store basket")
+                .tag("optimal", String.valueOf(optimal))
+                .register(meterRegistry);
+    }
+
+    public BasketOptimizationResponse optimizeBasket(BasketOptimizationRequest request) {
+        int maxStores = request.getMaxStores() != null ? request.getMaxStores() : DEFAULT_MAX_STORES;
+        double extraStoreCost = request.getExtraStoreCost() != null ? request.getExtraStoreCost() : 0.0;
+
+        // 1. Active basket items and stores, priced the same way as the comparison
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        List<ReferenceItem> basketItems = (snapshot != null
+                ? snapshot.referenceItems(new LinkedHashSet<>(request.getReferenceItemIds()))
+                : referenceItemRepository.findAllById(request.getReferenceItemIds()))
+                .stream()
+                .filter(ReferenceItem::isActive)
+                .toList();
+        suggestionIndex.recordBasket(basketItems.stream().map(ReferenceItem::getId).toList());
+
+        List<Store> stores = snapshot != null ? snapshot.activeStores() : storeRepository.findByActiveTrue();
+        Map<String, Map<String, StoreItem>> storeItemsByStore = basketPriceLoader.loadStoreItems(stores, basketItems);
+
+        // 2. Price table: prices[item][store], NaN where the store cannot sell the item
+        double[][] prices = new double[basketItems.size()][stores.size()];
+        StoreItem[][] storeItems = new StoreItem[basketItems.size()][stores.size()];
+        for (int i = 0; i < basketItems.size(); i++) {
+            ReferenceItem refItem = basketItems.get(i);
+            for (int s = 0; s < stores.size(); s++) {
+                Store store = stores.get(s);
+                StoreItem storeItem = BasketPriceLoader.isAssignedToStore(refItem, store)
+                        ? storeItemsByStore.getOrDefault(store.getId(), Map.of()).get(refItem.getId())
+                        : null;
+                Double price = storeItem != null ? BasketPriceLoader.effectivePrice(storeItem) : null;
+                prices[i][s] = price != null ? price : Double.NaN;
+                storeItems[i][s] = price != null ? storeItem : null;
+            }
+        }
+
+        // 3. Solve within the time budget, plus the single-store baseline
+        long start = System.nanoTime();
+        BasketOptimizer.Plan plan = new BasketOptimizer(prices, stores.size(), maxStores, extraStoreCost)
+                .solve(start + timeBudget.toNanos());
+        (plan.optimal() ? optimalTimer : bestEffortTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        BasketOptimizer.Plan single = BasketOptimizer.bestSingleStore(prices, stores.size());
+
+        // 4. Build the per-store shopping lists
+        List<StorePlan> storePlans = new ArrayList<>();
+        for (int s : plan.stores()) {
+            Store store = stores.get(s);
+            List<StoreItemPriceInfo> itemPrices = new ArrayList<>();
+            double subtotal = 0.0;
+            for (int i = 0; i < basketItems.size(); i++) {
+                if (plan.assignment()[i] != s) {
+                    continue;
+                }
+                StoreItem storeItem = storeItems[i][s];
+                subtotal += prices[i][s];
+                itemPrices.add(StoreItemPriceInfo.builder()
+                        .referenceItemId(basketItems.get(i).getId())
+                        .referenceItemName(basketItems.get(i).getName())
+                        .storeItemId(storeItem.getId())
+                        .storeItemName(storeItem.getName())
+                        .brand(storeItem.getBrand())
+                        .price(prices[i][s])
+                        .quantity(1)
+                        .lineTotal(prices[i][s])
+                        .currency(storeItem.getCurrency() != null ? storeItem.getCurrency() : DEFAULT_CURRENCY)
+                        .isPromotion(storeItem.getIsPromotion() != null && storeItem.getIsPromotion())
+                        .available(true)
+                        .build());
+            }
+            storePlans.add(StorePlan.builder()
+                    .storeId(store.getId())
+                    .storeName(store.getName())
+                    .storeLogoUrl(store.getLogoUrl())
+                    .subtotal(subtotal)
+                    .itemPrices(itemPrices)
+                    .build());
+        }
+
+        List<String> missingItems = new ArrayList<>();
+        for (int i = 0; i < basketItems.size(); i++) {
+            if (plan.assignment()[i] < 0) {
+                missingItems.add(basketItems.get(i).getName());
+            }
+        }
+
+        double extraStoreCosts = extraStoreCost * Math.max(plan.stores().length - 1, 0);
+        double totalCost = plan.itemsTotal() + extraStoreCosts;
+        boolean comparable = single.stores().length == 1 && single.missingCount() == plan.missingCount();
+
+        return BasketOptimizationResponse.builder()
+                .basketItems(basketItems.stream()
+                        .map(item -> BasketItemInfo.builder()
+                                .referenceItemId(item.getId())
+                                .name(item.getName())
+                                .category(item.getCategory())
+                                .build())
+                        .toList())
+                .storePlans(storePlans)
+                .missingItems(missingItems)
+                .itemsTotal(plan.itemsTotal())
+                .extraStoreCosts(extraStoreCosts)
+                .totalCost(totalCost)
+                .currency(DEFAULT_CURRENCY)
+                .bestSingleStoreId(comparable ? stores.get(single.stores()[0]).getId() : null)
+                .bestSingleStoreTotal(comparable ? single.itemsTotal() : null)
+                .savings(comparable ? single.itemsTotal() - totalCost : null)
+                .optimal(plan.optimal())
+                .build();
+    }
+}
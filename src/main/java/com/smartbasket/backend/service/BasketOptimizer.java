@@ -0,0 +1,337 @@
+package com.smartbasket.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Chooses at most K stores to buy a basket from so that the total is lowest, where each item
+ * is bought at the cheapest chosen store that has it and every store beyond the first costs a
+ * fixed extra amount. Covering more items always beats a lower total.
+ * <p>
+ * A greedy pass plus swap/drop local search gives a good plan quickly; branch-and-bound over
+ * store subsets then improves it until it proves optimality or the deadline passes. The bound
+ * at each node is the cost if every item could be bought at the cheapest store still reachable.
+ */
+class BasketOptimizer {
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Chosen stores (indices into the price table columns), the chosen store of each item
+     * (-1 when no chosen store has it) and whether the plan was proven optimal
+     */
+    record Plan(int[] stores, int[] assignment, double itemsTotal, int missingCount, boolean optimal) {
+    }
+
+    private final int itemCount;
+    private final int storeCount;
+    private final int maxStores;
+    private final double extraStoreCost;
+    // cost[store][item]: price, or the missing-item penalty when the store does not have it
+    private final double[][] cost;
+    private final double missingPenalty;
+
+    // Branch-and-bound state
+    private int[] order;
+    private double[][] suffixMin;
+    private double[][] levelMin;
+    private int[] chosen;
+    private int[] bestStores;
+    private double bestCost;
+    private long deadline;
+    private boolean timedOut;
+
+    /**
+     * @param prices prices[item][store], NaN when the store does not sell the item
+     */
+    BasketOptimizer(double[][] prices, int storeCount, int maxStores, double extraStoreCost) {
+        this.itemCount = prices.length;
+        this.storeCount = storeCount;
+        this.maxStores = Math.min(maxStores, storeCount);
+        this.extraStoreCost = extraStoreCost;
+
+        // Big enough that one more covered item outweighs any price or extra-store saving
+        double penalty = extraStoreCost * storeCount + 1;
+        for (double[] row : prices) {
+            double max = 0;
+            for (double price : row) {
+                if (!Double.isNaN(price)) {
+                    max = Math.max(max, price);
+                }
+            }
+            penalty += max;
+        }
+        this.missingPenalty = penalty;
+
+        this.cost = new double[storeCount][itemCount];
+        for (int s = 0; s < storeCount; s++) {
+            for (int i = 0; i < itemCount; i++) {
+                double price = prices[i][s];
+                cost[s][i] = Double.isNaN(price) ? missingPenalty : price;
+            }
+        }
+    }
+
+    Plan solve(long deadlineNanos) {
+        if (storeCount == 0 || maxStores <= 0) {
+            int[] none = new int[itemCount];
+            Arrays.fill(none, -1);
+            return new Plan(new int[0], none, 0, itemCount, true);
+        }
+        this.deadline = deadlineNanos;
+
+        int[] heuristic = localSearch(greedy());
+        bestStores = heuristic;
+        bestCost = totalCost(heuristic);
+
+        branchAndBound();
+        return toPlan(bestStores, !timedOut);
+    }
+
+    /**
+     * The best plan with one store, in a single pass over the price table: the store missing
+     * the fewest items, then the cheapest (first wins ties). Always optimal, no search needed.
+     */
+    static Plan bestSingleStore(double[][] prices, int storeCount) {
+        int itemCount = prices.length;
+        int best = -1;
+        int bestMissing = itemCount + 1;
+        double bestTotal = 0;
+        for (int s = 0; s < storeCount; s++) {
+            int missing = 0;
+            double total = 0;
+            for (int i = 0; i < itemCount; i++) {
+                double price = prices[i][s];
+                if (Double.isNaN(price)) {
+                    missing++;
+                } else {
+                    total += price;
+                }
+            }
+            if (missing < bestMissing || (missing == bestMissing && total < bestTotal - EPSILON)) {
+                best = s;
+                bestMissing = missing;
+                bestTotal = total;
+            }
+        }
+
+        int[] assignment = new int[itemCount];
+        Arrays.fill(assignment, -1);
+        if (best < 0) {
+            return new Plan(new int[0], assignment, 0, itemCount, true);
+        }
+        for (int i = 0; i < itemCount; i++) {
+            if (!Double.isNaN(prices[i][best])) {
+                assignment[i] = best;
+            }
+        }
+        return new Plan(new int[]{best}, assignment, bestTotal, bestMissing, true);
+    }
+
+    /**
+     * Start from the cheapest single store and keep adding the store that saves the most
+     */
+    private int[] greedy() {
+        List<Integer> stores = new ArrayList<>();
+        double[] current = new double[itemCount];
+        Arrays.fill(current, Double.POSITIVE_INFINITY);
+        double currentCost = Double.POSITIVE_INFINITY;
+
+        while (stores.size() < maxStores) {
+            int bestStore = -1;
+            double bestValue = currentCost;
+            for (int s = 0; s < storeCount; s++) {
+                if (stores.contains(s)) {
+                    continue;
+                }
+                double value = extraStoreCost * stores.size();
+                for (int i = 0; i < itemCount; i++) {
+                    value += Math.min(current[i], cost[s][i]);
+                }
+                if (value < bestValue - EPSILON) {
+                    bestValue = value;
+                    bestStore = s;
+                }
+            }
+            if (bestStore < 0) {
+                break;
+            }
+            stores.add(bestStore);
+            for (int i = 0; i < itemCount; i++) {
+                current[i] = Math.min(current[i], cost[bestStore][i]);
+            }
+            currentCost = bestValue;
+        }
+        return stores.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Apply improving drops and swaps until none is left or time runs out
+     */
+    private int[] localSearch(int[] start) {
+        int[] stores = start;
+        double storesCost = totalCost(stores);
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = false;
+
+            for (int k = 0; k < stores.length && stores.length > 1 && !improved; k++) {
+                int[] candidate = without(stores, k);
+                double candidateCost = totalCost(candidate);
+                if (candidateCost < storesCost - EPSILON) {
+                    stores = candidate;
+                    storesCost = candidateCost;
+                    improved = true;
+                }
+            }
+
+            for (int k = 0; k < stores.length && !improved; k++) {
+                for (int s = 0; s < storeCount && !improved; s++) {
+                    if (contains(stores, s)) {
+                        continue;
+                    }
+                    int[] candidate = stores.clone();
+                    candidate[k] = s;
+                    double candidateCost = totalCost(candidate);
+                    if (candidateCost < storesCost - EPSILON) {
+                        stores = candidate;
+                        storesCost = candidateCost;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return stores;
+    }
+
+    private void branchAndBound() {
+        // Cheapest stand-alone stores first, so good plans are found early and bounds tighten fast
+        double[] standalone = new double[storeCount];
+        for (int s = 0; s < storeCount; s++) {
+            standalone[s] = Arrays.stream(cost[s]).sum();
+        }
+        order = IntStream.range(0, storeCount).boxed()
+                .sorted(Comparator.comparingDouble(s -> standalone[s]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        // suffixMin[j][i]: cheapest cost of item i among stores order[j..]
+        suffixMin = new double[storeCount + 1][itemCount];
+        Arrays.fill(suffixMin[storeCount], missingPenalty);
+        for (int j = storeCount - 1; j >= 0; j--) {
+            for (int i = 0; i < itemCount; i++) {
+                suffixMin[j][i] = Math.min(suffixMin[j + 1][i], cost[order[j]][i]);
+            }
+        }
+
+        levelMin = new double[maxStores + 1][itemCount];
+        Arrays.fill(levelMin[0], missingPenalty);
+        chosen = new int[maxStores];
+        search(0, 0);
+    }
+
+    private void search(int next, int depth) {
+        if (System.nanoTime() > deadline) {
+            timedOut = true;
+            return;
+        }
+
+        double[] current = levelMin[depth];
+        if (depth > 0) {
+            double value = extraStoreCost * (depth - 1);
+            for (int i = 0; i < itemCount; i++) {
+                value += current[i];
+            }
+            if (value < bestCost - EPSILON) {
+                bestCost = value;
+                bestStores = new int[depth];
+                for (int k = 0; k < depth; k++) {
+                    bestStores[k] = order[chosen[k]];
+                }
+            }
+        }
+        if (depth == maxStores || next == storeCount) {
+            return;
+        }
+
+        double bound = extraStoreCost * Math.max(depth - 1, 0);
+        for (int i = 0; i < itemCount; i++) {
+            bound += Math.min(current[i], suffixMin[next][i]);
+        }
+        if (bound >= bestCost - EPSILON) {
+            return;
+        }
+
+        double[] child = levelMin[depth + 1];
+        for (int j = next; j < storeCount && !timedOut; j++) {
+            double[] storeCost = cost[order[j]];
+            for (int i = 0; i < itemCount; i++) {
+                child[i] = Math.min(current[i], storeCost[i]);
+            }
+            chosen[depth] = j;
+            search(j + 1, depth + 1);
+        }
+    }
+
+    private double totalCost(int[] stores) {
+        if (stores.length == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double total = extraStoreCost * (stores.length - 1);
+        for (int i = 0; i < itemCount; i++) {
+            double min = missingPenalty;
+            for (int s : stores) {
+                min = Math.min(min, cost[s][i]);
+            }
+            total += min;
+        }
+        return total;
+    }
+
+    private Plan toPlan(int[] stores, boolean optimal) {
+        int[] assignment = new int[itemCount];
+        double itemsTotal = 0;
+        int missing = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int bestStore = -1;
+            double min = missingPenalty;
+            for (int s : stores) {
+                if (cost[s][i] < min) {
+                    min = cost[s][i];
+                    bestStore = s;
+                }
+            }
+            assignment[i] = bestStore;
+            if (bestStore < 0) {
+                missing++;
+            } else {
+                itemsTotal += min;
+            }
+        }
+
+        // Drop stores that ended up with nothing to buy
+        int[] used = Arrays.stream(stores)
+                .filter(s -> Arrays.stream(assignment).anyMatch(a -> a == s))
+                .toArray();
+        return new Plan(used, assignment, itemsTotal, missing, optimal);
+    }
+
+    private static boolean contains(int[] stores, int store) {
+        for (int s : stores) {
+            if (s == store) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] without(int[] stores, int index) {
+        int[] result = new int[stores.length - 1];
+        System.arraycopy(stores, 0, result, 0, index);
+        System.arraycopy(stores, index + 1, result, index, stores.length - index - 1);
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.cache.PriceMatrix;
+import com.smartbasket.backend.cache.ReferenceItemPriceView;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.repository.StoreItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Resolves the store items and effective prices a basket is priced from, shared by the
+ * single-store comparison and the multi-store optimizer so both see the same data.
+ */
+@Component
+public class BasketPriceLoader {
+
+    private final StoreItemRepository storeItemRepository;
+    private final PriceMatrix priceMatrix;
+    private final ReferenceItemPriceView referenceItemPriceView;
+    private final FanOut fanOut;
+    private final int storesPerQuery;
+    private final Duration deadline;
+
+    public BasketPriceLoader(
+            StoreItemRepository storeItemRepository,
+            PriceMatrix priceMatrix,
+            ReferenceItemPriceView referenceItemPriceView,
+            FanOut fanOut,
+            @Value("${smartbasket.basket.compare.stores-per-query:0}") int storesPerQuery,
+            @Value("${smartbasket.basket.compare.deadline:2s}") Duration deadline) {
+        this.storeItemRepository = storeItemRepository;
+        this.priceMatrix = priceMatrix;
+        this.referenceItemPriceView = referenceItemPriceView;
+        this.fanOut = fanOut;
+        this.storesPerQuery = storesPerQuery > 0 ? storesPerQuery : Integer.MAX_VALUE;
+        this.deadline = deadline;
+    }
+
+    public Map<String, Map<String, StoreItem>> loadStoreItems(List<Store> stores, List<ReferenceItem> basketItems) {
+        return loadStoreItems(stores, basketItems, System.nanoTime() + deadline.toNanos());
+    }
+
+    /**
+     * Load store items for the basket, keyed by storeId then referenceItemId.
+     * Served from the resident price matrix once it is built, otherwise from the reference_item_prices
+     * view (one document per basket item), otherwise from store_items with a single $in query over
+     * all stores. With stores-per-query set, stores are split into groups queried concurrently and
+     * bounded by the deadline (System.nanoTime based).
+     */
+    public Map<String, Map<String, StoreItem>> loadStoreItems(List<Store> stores, List<ReferenceItem> basketItems,
+                                                              long deadlineNanos) {
+        List<String> referenceItemIds = basketItems.stream().map(ReferenceItem::getId).toList();
+        if (priceMatrix.isReady()) {
+            return priceMatrix.lookup(stores.stream().map(Store::getId).toList(), referenceItemIds);
+        }
+
+        if (referenceItemIds.isEmpty() || stores.isEmpty()) {
+            return Map.of();
+        }
+        if (referenceItemPriceView.isReady()) {
+            return referenceItemPriceView.lookup(stores.stream().map(Store::getId).toList(), referenceItemIds);
+        }
+
+        // Whole basket per query; one query for all stores unless they are split into groups
+        List<String> storeIds = stores.stream().map(Store::getId).toList();
+        List<Callable<List<StoreItem>>> queries = new ArrayList<>();
+        for (int from = 0, to; from < storeIds.size(); from = to) {
+            to = from + Math.min(storesPerQuery, storeIds.size() - from);
+            List<String> group = storeIds.subList(from, to);
+            queries.add(() -> storeItemRepository.findForComparison(referenceItemIds, group));
+        }
+
+        Map<String, Map<String, StoreItem>> storeItemsByStore = new HashMap<>();
+        for (List<StoreItem> storeItems : fanOut.all(queries, deadlineNanos)) {
+            for (StoreItem storeItem : storeItems) {
+                storeItemsByStore.computeIfAbsent(storeItem.getStoreId(), k -> new HashMap<>())
+                        .putIfAbsent(storeItem.getReferenceItemId(), storeItem);
+            }
+        }
+        return storeItemsByStore;
+    }
+
+    /**
+     * Whether the admin has made the item available at the store
+     * (specificStoreIds is the whitelist when availableInAllStores is false)
+     */
+    public static boolean isAssignedToStore(ReferenceItem refItem, Store store) {
+        return refItem.isAvailableInAllStores() ||
+                (refItem.getSpecificStoreIds() != null && refItem.getSpecificStoreIds().contains(store.getId()));
+    }
+
+    /**
+     * Discount price, falling back to the original price; null when the item has no usable price
+     */
+    public static Double effectivePrice(StoreItem storeItem) {
+        Double price = storeItem.getDiscountPrice();
+        if (price == null || price <= 0) {
+            price = storeItem.getOriginalPrice();
+        }
+        return price != null && price > 0 ? price : null;
+    }
+}
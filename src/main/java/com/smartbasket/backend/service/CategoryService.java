@@ -1,5 +1,7 @@
 package com.smartbasket.backend.service;
 
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
 import com.smartbasket.backend.dto.CategoryDto;
 import com.smartbasket.backend.dto.CreateCategoryRequest;
 import com.smartbasket.backend.exception.ResourceNotFoundException;
@@ -17,23 +19,27 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     public List<CategoryDto> getAllCategories() {
-        return categoryRepository.findAllByOrderByDisplayOrderAsc()
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? snapshot.categories() : categoryRepository.findAllByOrderByDisplayOrderAsc())
                 .stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     public List<CategoryDto> getActiveCategories() {
-        return categoryRepository.findByActiveTrueOrderByDisplayOrderAsc()
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? snapshot.activeCategories() : categoryRepository.findByActiveTrueOrderByDisplayOrderAsc())
                 .stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     public Optional<CategoryDto> getCategoryById(String id) {
-        return categoryRepository.findById(id)
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Optional.ofNullable(snapshot.category(id)) : categoryRepository.findById(id))
                 .map(this::toDto);
     }
 
@@ -54,6 +60,7 @@ public class CategoryService {
                 .build();
 
         Category saved = categoryRepository.save(category);
+        referenceDataCache.putCategory(saved);
         return toDto(saved);
     }
 
@@ -82,12 +89,14 @@ public class CategoryService {
         }
 
         Category saved = categoryRepository.save(existing);
+        referenceDataCache.putCategory(saved);
         return toDto(saved);
     }
 
     public boolean deleteCategory(String id) {
         if (categoryRepository.existsById(id)) {
             categoryRepository.deleteById(id);
+            referenceDataCache.removeCategory(id);
             return true;
         }
         return false;
@@ -97,7 +106,9 @@ public class CategoryService {
         return categoryRepository.findById(id)
                 .map(existing -> {
                     existing.setActive(!existing.isActive());
-                    return categoryRepository.save(existing);
+                    Category saved = categoryRepository.save(existing);
+                    referenceDataCache.putCategory(saved);
+                    return saved;
                 })
                 .map(this::toDto);
     }
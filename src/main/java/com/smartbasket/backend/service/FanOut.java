@@ -0,0 +1,113 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.config.ExecutorConfig;
+import com.smartbasket.backend.config.MongoCommandMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a group of blocking subtasks concurrently and waits for all of them, structured-concurrency
+ * style: the caller gets every result or an exception, and on failure or deadline the remaining
+ * subtasks are cancelled so nothing outlives the call.
+ * <p>
+ * Subtasks run on virtual threads or a fixed platform pool (smartbasket.executor.mode, see
+ * {@link ExecutorConfig}); the executor is exported as executor metrics named fanOut. The
+ * platform pool queues at most smartbasket.executor.queue-capacity subtasks; beyond that a call
+ * fails fast instead of piling up work that would miss its deadline anyway.
+ */
+@Slf4j
+@Component
+public class FanOut {
+
+    private final ExecutorService executor;
+
+    public FanOut(@Value("${smartbasket.executor.mode:platform}") String mode,
+                  @Value("${smartbasket.executor.platform-threads:0}") int platformThreads,
+                  @Value("${smartbasket.executor.queue-capacity:1000}") int queueCapacity,
+                  MeterRegistry meterRegistry) {
+        ExecutorService chosen = "virtual".equalsIgnoreCase(mode) ? ExecutorConfig.virtualThreadExecutor() : null;
+        if (chosen == null) {
+            int threads = platformThreads > 0 ? platformThreads : Runtime.getRuntime().availableProcessors() * 4;
+            AtomicInteger counter = new AtomicInteger();
+            chosen = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                    task -> {
+                        Thread thread = new Thread(task, "fan-out-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, chosen, "fanOut");
+    }
+
+    /**
+     * Run the tasks concurrently and return their results in task order.
+     * A single task runs on the calling thread.
+     *
+     * @throws IllegalStateException when the deadline (System.nanoTime based) passes first,
+     *                               or the pool queue is full
+     */
+    public <T> List<T> all(List<Callable<T>> tasks, long deadlineNanos) {
+        if (tasks.size() == 1) {
+            return List.of(call(tasks.get(0)));
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(MongoCommandMonitor.propagate(task)));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                long remaining = deadlineNanos - System.nanoTime();
+                results.add(future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for " + tasks.size() + " concurrent lookups");
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many concurrent lookups queued, rejected " + tasks.size() + " more");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for concurrent lookups", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
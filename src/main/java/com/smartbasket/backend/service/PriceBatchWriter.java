@@ -0,0 +1,241 @@
+package com.smartbasket.backend.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.smartbasket.backend.cache.BarcodeIndex;
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.PriceMatrix;
+import com.smartbasket.backend.cache.StoreItemVersion;
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest.PriceEntry;
+import com.smartbasket.backend.event.CatalogEvent;
+import com.smartbasket.backend.event.CatalogEventBus;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.model.StorePrice;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Applies a list of price entries with a constant number of round trips:
+ * one $in read of the store items, one unordered bulk of $set updates for the cached prices and
+ * one history write (see {@link PriceHistoryService}). Each repriced store item is then
+ * published as a {@link CatalogEvent#priceChanged} event.
+ * <p>
+ * A partially applied bulk is handled per store item: items whose update failed are reported as
+ * failed and get no cache patch, event or history row; the others complete normally.
+ * Once the bulk has run nothing is thrown, so a caller that retries after an exception never
+ * writes an applied entry (and its history row) twice; later failures are reported per entry.
+ * <p>
+ * In skip-unchanged mode entries that repeat the cached price write no history
+ * and only bump lastSeen on the store item.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceBatchWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final PriceHistoryService priceHistoryService;
+    private final PriceMatrix priceMatrix;
+    private final BarcodeIndex barcodeIndex;
+    private final BasketResultCache basketResultCache;
+    private final CatalogEventBus catalogEventBus;
+    private final StoreItemVersion storeItemVersion;
+
+    private static final String DEFAULT_CURRENCY = "JOD";
+
+    /**
+     * Outcome of a single entry, in the same order as the entries passed to {@link #write}.
+     * An unchanged entry succeeded without writing a history row, so its price is null.
+     */
+    public record Outcome(String storeItemId, StorePrice price, boolean unchanged, String error) {
+        public boolean success() {
+            return error == null;
+        }
+    }
+
+    /**
+     * @param skipUnchanged skip entries whose price, original price, currency and promotion flag
+     *                      match the cached values on the store item; those only get lastSeen bumped
+     */
+    public List<Outcome> write(List<PriceEntry> entries, boolean skipUnchanged) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. Resolve every store item with one query (images are never needed here)
+        List<String> ids = entries.stream().map(PriceEntry::getStoreItemId).distinct().toList();
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().exclude("images");
+        Map<String, StoreItem> storeItems = new HashMap<>();
+        for (StoreItem item : mongoTemplate.find(query, StoreItem.class)) {
+            storeItems.put(item.getId(), item);
+        }
+
+        // 2. Build history rows; the last changed entry for a store item decides its cached price.
+        //    Change detection compares against the cached price as updated by earlier entries of the batch.
+        Instant now = Instant.now();
+        List<StorePrice> history = new ArrayList<>();
+        StorePrice[] entryPrices = new StorePrice[entries.size()];
+        Map<String, StorePrice> latestByItem = new LinkedHashMap<>();
+        Set<String> seenItems = new LinkedHashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            PriceEntry entry = entries.get(i);
+            StoreItem storeItem = storeItems.get(entry.getStoreItemId());
+            if (storeItem == null) {
+                continue;
+            }
+            seenItems.add(storeItem.getId());
+            StorePrice priceRecord = StorePrice.builder()
+                    .storeItemId(entry.getStoreItemId())
+                    .price(entry.getPrice())
+                    .originalPrice(entry.getOriginalPrice())
+                    .currency(entry.getCurrency() != null ? entry.getCurrency() : DEFAULT_CURRENCY)
+                    .isPromotion(entry.getIsPromotion() != null ? entry.getIsPromotion() : false)
+                    .timestamp(now)
+                    .build();
+            StorePrice cached = latestByItem.get(storeItem.getId());
+            if (skipUnchanged && (cached != null ? isSamePrice(cached, priceRecord) : isSamePrice(storeItem, priceRecord))) {
+                continue;
+            }
+            entryPrices[i] = priceRecord;
+            history.add(priceRecord);
+            latestByItem.put(entry.getStoreItemId(), priceRecord);
+        }
+
+        // 3. One unordered bulk for the cached prices and lastSeen. Ops that failed are known by index;
+        //    when the outcome of the whole bulk is unknown, the store items are read back to find out.
+        Map<String, String> failed = new HashMap<>();
+        if (!seenItems.isEmpty()) {
+            List<String> bulkIds = new ArrayList<>(seenItems);
+            try {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoreItem.class);
+                for (String storeItemId : bulkIds) {
+                    StorePrice latest = latestByItem.get(storeItemId);
+                    Update update = new Update().set("lastSeen", now);
+                    if (latest != null) {
+                        update.set("discountPrice", latest.getPrice())
+                                .set("originalPrice", latest.getOriginalPrice())
+                                .set("currency", latest.getCurrency())
+                                .set("isPromotion", latest.isPromotion())
+                                .set("lastPriceUpdate", now);
+                    }
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(storeItemId)), update);
+                }
+                bulk.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    failed.put(bulkIds.get(error.getIndex()), error.getMessage());
+                }
+            } catch (RuntimeException e) {
+                failed.putAll(unapplied(latestByItem, now, e.getMessage()));
+            }
+        }
+
+        // 4. Patch caches and announce only what was applied, then record its history
+        List<StorePrice> appliedHistory = history.stream()
+                .filter(row -> !failed.containsKey(row.getStoreItemId()))
+                .toList();
+        List<StoreItem> repriced = new ArrayList<>(latestByItem.size());
+        Map<String, String> unpatched = new HashMap<>();
+        for (StorePrice latest : latestByItem.values()) {
+            StoreItem storeItem = storeItems.get(latest.getStoreItemId());
+            if (failed.containsKey(storeItem.getId())) {
+                // The write may have landed anyway, so cached comparisons of the item are dropped too
+                basketResultCache.bumpItem(storeItem.getReferenceItemId());
+                continue;
+            }
+            storeItem.setDiscountPrice(latest.getPrice());
+            storeItem.setOriginalPrice(latest.getOriginalPrice());
+            storeItem.setCurrency(latest.getCurrency());
+            storeItem.setIsPromotion(latest.isPromotion());
+            storeItem.setLastPriceUpdate(now);
+            repriced.add(storeItem);
+            try {
+                priceMatrix.put(storeItem);
+                barcodeIndex.put(storeItem);
+                catalogEventBus.publish(CatalogEvent.priceChanged(storeItem));
+            } catch (RuntimeException e) {
+                unpatched.put(storeItem.getId(), "Price applied but caches not patched: " + e.getMessage());
+            } finally {
+                // Only after the patches: a comparison computed in between would be cached as current
+                basketResultCache.bumpItem(storeItem.getReferenceItemId());
+            }
+        }
+        if (!repriced.isEmpty()) {
+            storeItemVersion.pricesChanged(repriced);
+        }
+        String historyError = null;
+        try {
+            priceHistoryService.record(appliedHistory);
+        } catch (RuntimeException e) {
+            historyError = "Price applied but history not recorded: " + e.getMessage();
+        }
+
+        // 5. Report per entry, in request order
+        List<Outcome> outcomes = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            String storeItemId = entries.get(i).getStoreItemId();
+            if (!storeItems.containsKey(storeItemId)) {
+                outcomes.add(new Outcome(storeItemId, null, false, "Store item not found: " + storeItemId));
+            } else if (failed.containsKey(storeItemId)) {
+                outcomes.add(new Outcome(storeItemId, null, false, failed.get(storeItemId)));
+            } else if (entryPrices[i] != null && historyError != null) {
+                outcomes.add(new Outcome(storeItemId, null, false, historyError));
+            } else if (unpatched.containsKey(storeItemId)) {
+                outcomes.add(new Outcome(storeItemId, null, false, unpatched.get(storeItemId)));
+            } else {
+                outcomes.add(new Outcome(storeItemId, entryPrices[i], entryPrices[i] == null, null));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * After a bulk whose outcome is unknown (e.g. the connection dropped), read the repriced store
+     * items back and return those not carrying this batch's write, with the error to report.
+     * If they cannot be read either, every one of them is reported as failed.
+     */
+    private Map<String, String> unapplied(Map<String, StorePrice> latestByItem, Instant now, String error) {
+        Map<String, String> unapplied = new HashMap<>();
+        latestByItem.keySet().forEach(id -> unapplied.put(id, error));
+        if (latestByItem.isEmpty()) {
+            return unapplied;
+        }
+        try {
+            Query query = Query.query(Criteria.where("_id").in(latestByItem.keySet()).and("lastPriceUpdate").is(now));
+            query.fields().include("_id");
+            mongoTemplate.find(query, StoreItem.class).forEach(item -> unapplied.remove(item.getId()));
+        } catch (RuntimeException e) {
+            // Outcome still unknown: report failure, the caller may retry
+        }
+        return unapplied;
+    }
+
+    private static boolean isSamePrice(StoreItem cached, StorePrice incoming) {
+        return Objects.equals(cached.getDiscountPrice(), incoming.getPrice())
+                && Objects.equals(cached.getOriginalPrice(), incoming.getOriginalPrice())
+                && Objects.equals(cached.getCurrency() != null ? cached.getCurrency() : DEFAULT_CURRENCY, incoming.getCurrency())
+                && (cached.getIsPromotion() != null && cached.getIsPromotion()) == incoming.isPromotion();
+    }
+
+    private static boolean isSamePrice(StorePrice previous, StorePrice incoming) {
+        return Objects.equals(previous.getPrice(), incoming.getPrice())
+                && Objects.equals(previous.getOriginalPrice(), incoming.getOriginalPrice())
+                && Objects.equals(previous.getCurrency(), incoming.getCurrency())
+                && previous.isPromotion() == incoming.isPromotion();
+    }
+}
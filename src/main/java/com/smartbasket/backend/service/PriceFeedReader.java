@@ -0,0 +1,135 @@
+package com.smartbasket.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest.PriceEntry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental reader for price feeds. Only the rows of the current chunk are held in memory,
+ * so a feed of any size can be ingested with a flat heap profile.
+ * <p>
+ * NDJSON: one {@link PriceEntry} JSON object per line.
+ * CSV: a header row naming the columns (storeItemId, price, originalPrice, currency, isPromotion), then one row per entry.
+ */
+public class PriceFeedReader {
+
+    public enum Format { NDJSON, CSV }
+
+    /**
+     * A parsed row, or the reason it could not be parsed
+     */
+    public record Row(long lineNumber, PriceEntry entry, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, Integer> csvColumns;
+    private long lineNumber = 0;
+
+    public PriceFeedReader(BufferedReader reader, Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read up to maxRows rows; an empty list means the feed is exhausted
+     */
+    public List<Row> readChunk(int maxRows) throws IOException {
+        List<Row> rows = new ArrayList<>(maxRows);
+        String line;
+        while (rows.size() < maxRows && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvColumns == null) {
+                csvColumns = parseHeader(line);
+                continue;
+            }
+            try {
+                PriceEntry entry = format == Format.NDJSON
+                        ? objectMapper.readValue(line, PriceEntry.class)
+                        : parseCsvRow(line);
+                rows.add(new Row(lineNumber, entry, null));
+            } catch (Exception e) {
+                rows.add(new Row(lineNumber, null, "Line " + lineNumber + ": " + e.getMessage()));
+            }
+        }
+        return rows;
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        if (!columns.containsKey("storeItemId") || !columns.containsKey("price")) {
+            throw new IllegalArgumentException("CSV header must contain storeItemId and price columns");
+        }
+        return columns;
+    }
+
+    private PriceEntry parseCsvRow(String line) {
+        List<String> values = splitCsv(line);
+        String price = column(values, "price");
+        String originalPrice = column(values, "originalPrice");
+        String isPromotion = column(values, "isPromotion");
+        return PriceEntry.builder()
+                .storeItemId(column(values, "storeItemId"))
+                .price(price != null ? Double.valueOf(price) : null)
+                .originalPrice(originalPrice != null ? Double.valueOf(originalPrice) : null)
+                .currency(column(values, "currency"))
+                .isPromotion(isPromotion != null ? Boolean.valueOf(isPromotion) : null)
+                .build();
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = csvColumns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Split a CSV line, honouring double-quoted fields and "" escapes
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,147 @@
+package com.smartbasket.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest;
+import com.smartbasket.backend.dto.BatchPriceUpdateResponse;
+import com.smartbasket.backend.dto.PriceFeedProgress;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests large price feeds chunk by chunk and reports progress as NDJSON
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceFeedService {
+
+    private final PriceUpdateService priceUpdateService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * Read the feed in chunks of chunkSize rows, write each chunk as one batch and
+     * emit one progress line per chunk followed by a summary line
+     */
+    public void ingest(InputStream body, PriceFeedReader.Format format, int chunkSize, boolean skipUnchanged,
+                       OutputStream out) throws IOException {
+        PriceFeedReader reader = new PriceFeedReader(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), format, objectMapper);
+
+        int chunk = 0;
+        long rowsProcessed = 0;
+        int successCount = 0;
+        int failureCount = 0;
+        int unchangedCount = 0;
+
+        try {
+            List<PriceFeedReader.Row> rows;
+            while (!(rows = reader.readChunk(chunkSize)).isEmpty()) {
+                chunk++;
+                ChunkResult result = processChunk(rows, skipUnchanged);
+                List<BatchPriceUpdateResponse.PriceUpdateResult> results = result.results();
+                int chunkSuccess = (int) results.stream().filter(BatchPriceUpdateResponse.PriceUpdateResult::isSuccess).count();
+
+                rowsProcessed += rows.size();
+                successCount += chunkSuccess;
+                failureCount += results.size() - chunkSuccess;
+                unchangedCount += result.unchangedCount();
+
+                writeLine(out, PriceFeedProgress.builder()
+                        .type("chunk")
+                        .chunk(chunk)
+                        .rowsProcessed(rowsProcessed)
+                        .successCount(chunkSuccess)
+                        .failureCount(results.size() - chunkSuccess)
+                        .unchangedCount(result.unchangedCount())
+                        .results(results)
+                        .build());
+            }
+        } catch (Exception e) {
+            // Rows already written stay written; tell the client where the feed stopped
+            writeLine(out, PriceFeedProgress.builder()
+                    .type("error")
+                    .chunk(chunk)
+                    .rowsProcessed(rowsProcessed)
+                    .successCount(successCount)
+                    .failureCount(failureCount)
+                    .unchangedCount(unchangedCount)
+                    .message(e.getMessage())
+                    .build());
+            return;
+        }
+
+        writeLine(out, PriceFeedProgress.builder()
+                .type("summary")
+                .rowsProcessed(rowsProcessed)
+                .successCount(successCount)
+                .failureCount(failureCount)
+                .unchangedCount(unchangedCount)
+                .build());
+    }
+
+    private record ChunkResult(List<BatchPriceUpdateResponse.PriceUpdateResult> results, int unchangedCount) {
+    }
+
+    private ChunkResult processChunk(List<PriceFeedReader.Row> rows, boolean skipUnchanged) {
+        List<BatchPriceUpdateResponse.PriceUpdateResult> results = new ArrayList<>(rows.size());
+        List<BatchPriceUpdateRequest.PriceEntry> valid = new ArrayList<>(rows.size());
+        // Index into results for each valid entry, so batch results land back in feed order
+        List<Integer> validPositions = new ArrayList<>(rows.size());
+
+        for (PriceFeedReader.Row row : rows) {
+            String error = row.error() != null ? row.error() : validate(row);
+            if (error != null) {
+                results.add(BatchPriceUpdateResponse.PriceUpdateResult.builder()
+                        .storeItemId(row.entry() != null ? row.entry().getStoreItemId() : null)
+                        .success(false)
+                        .message(error)
+                        .build());
+            } else {
+                validPositions.add(results.size());
+                results.add(null);
+                valid.add(row.entry());
+            }
+        }
+
+        int unchangedCount = 0;
+        if (!valid.isEmpty()) {
+            BatchPriceUpdateResponse response = priceUpdateService.batchUpdatePrices(
+                    BatchPriceUpdateRequest.builder().prices(valid).skipUnchanged(skipUnchanged).build());
+            for (int i = 0; i < validPositions.size(); i++) {
+                results.set(validPositions.get(i), response.getResults().get(i));
+            }
+            unchangedCount = response.getUnchangedCount();
+        }
+        return new ChunkResult(results, unchangedCount);
+    }
+
+    private String validate(PriceFeedReader.Row row) {
+        Set<ConstraintViolation<BatchPriceUpdateRequest.PriceEntry>> violations = validator.validate(row.entry());
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return "Line " + row.lineNumber() + ": " + violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void writeLine(OutputStream out, PriceFeedProgress progress) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(progress));
+        out.write('\n');
+        out.flush();
+    }
+}
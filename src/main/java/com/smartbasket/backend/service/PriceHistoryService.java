@@ -0,0 +1,445 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.dto.PriceHistoryPage;
+import com.smartbasket.backend.dto.PriceHistoryPoint;
+import com.smartbasket.backend.model.StorePrice;
+import com.smartbasket.backend.model.StorePriceBucket;
+import com.smartbasket.backend.model.StorePriceBucket.Granularity;
+import com.smartbasket.backend.repository.StorePriceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Stores and reads price history in one of two layouts:
+ * <ul>
+ *     <li>documents - one store_prices document per update (default)</li>
+ *     <li>buckets - one store_price_buckets document per store item per day, holding compact arrays.
+ *     A nightly job folds day buckets older than the retention window into month buckets and
+ *     migrates any remaining store_prices rows, so long-lived items end up with one document per month.</li>
+ * </ul>
+ * Range reads only touch the buckets overlapping the requested window. Samples read from buckets
+ * carry a derived id (store item, timestamp, ordinal among samples with that timestamp) that
+ * stays the same when compaction moves them into a month bucket.
+ */
+@Slf4j
+@Service
+public class PriceHistoryService {
+
+    public enum Storage { DOCUMENTS, BUCKETS }
+
+    private static final int COMPACTION_BATCH_SIZE = 1000;
+    private static final String LOCK_COLLECTION = "job_locks";
+    private static final String COMPACTION_LOCK = "price-history-compaction";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final StorePriceRepository storePriceRepository;
+    private final Storage storage;
+    private final Duration dayBucketRetention;
+    private final Duration compactionLease;
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    public PriceHistoryService(
+            MongoTemplate mongoTemplate,
+            StorePriceRepository storePriceRepository,
+            @Value("${smartbasket.prices.history.storage:documents}") String storage,
+            @Value("${smartbasket.prices.history.day-bucket-retention:31d}") Duration dayBucketRetention,
+            @Value("${smartbasket.prices.history.compaction-lease:15m}") Duration compactionLease) {
+        this.mongoTemplate = mongoTemplate;
+        this.storePriceRepository = storePriceRepository;
+        this.storage = Storage.valueOf(storage.toUpperCase());
+        this.dayBucketRetention = dayBucketRetention;
+        this.compactionLease = compactionLease;
+    }
+
+    /**
+     * Append history rows with a single round trip (insertMany, or one bulk of bucket upserts)
+     */
+    public void record(List<StorePrice> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (storage == Storage.DOCUMENTS) {
+            storePriceRepository.insert(rows);
+        } else {
+            appendToBuckets(rows, monthCutoff(), row -> null);
+        }
+    }
+
+    /**
+     * History of a store item within [from, to], newest first. Either bound may be null.
+     */
+    public List<StorePrice> getHistory(String storeItemId, Instant from, Instant to) {
+        if (storage == Storage.DOCUMENTS) {
+            Query query = Query.query(rangeCriteria("storeItemId", storeItemId, "timestamp", from, to))
+                    .with(Sort.by(Sort.Direction.DESC, "timestamp"));
+            return mongoTemplate.find(query, StorePrice.class);
+        }
+        return readBucketsUntil(storeItemId, from, to, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page of history within [from, to], newest first.
+     * The cursor is "epochMillis:n": continue at that timestamp, skipping the n samples
+     * with exactly that timestamp that earlier pages already returned.
+     */
+    public PriceHistoryPage getHistoryPage(String storeItemId, Instant from, Instant to, String cursor, int limit) {
+        Instant upper = to;
+        int skip = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            try {
+                upper = Instant.ofEpochMilli(Long.parseLong(parts[0]));
+                skip = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+            }
+            if (to != null && to.isBefore(upper)) {
+                upper = to;
+            }
+        }
+
+        List<StorePrice> items;
+        if (storage == Storage.DOCUMENTS) {
+            // Served by the {storeItemId: 1, timestamp: -1} index; _id breaks timestamp ties deterministically
+            Query query = Query.query(rangeCriteria("storeItemId", storeItemId, "timestamp", from, upper))
+                    .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                    .skip(skip)
+                    .limit(limit + 1);
+            items = mongoTemplate.find(query, StorePrice.class);
+        } else {
+            items = readBucketsUntil(storeItemId, from, upper, skip + limit + 1);
+            items = items.subList(Math.min(skip, items.size()), items.size());
+        }
+
+        boolean hasMore = items.size() > limit;
+        List<StorePrice> page = new ArrayList<>(hasMore ? items.subList(0, limit) : items);
+        String nextCursor = null;
+        if (hasMore) {
+            Instant last = page.get(page.size() - 1).getTimestamp();
+            long sameTimestamp = page.stream().filter(p -> p.getTimestamp().equals(last)).count();
+            // Ties that continue from the previous page's cursor are skipped too
+            if (last.equals(upper) && cursor != null && !cursor.isBlank()) {
+                sameTimestamp += skip;
+            }
+            nextCursor = last.toEpochMilli() + ":" + sameTimestamp;
+        }
+        return PriceHistoryPage.builder().items(page).nextCursor(nextCursor).build();
+    }
+
+    /**
+     * History within [from, to] folded into min / max / last price per hour or day, oldest first.
+     * Only timestamp and price are read from Mongo.
+     */
+    public List<PriceHistoryPoint> getDownsampledHistory(String storeItemId, Instant from, Instant to,
+                                                         PriceHistoryPoint.Interval interval) {
+        ChronoUnit unit = interval.unit();
+        List<PriceHistoryPoint> points = new ArrayList<>();
+        Consumer<StorePrice> fold = sample -> {
+            if (sample.getPrice() == null) {
+                return;
+            }
+            Instant periodStart = sample.getTimestamp().truncatedTo(unit);
+            PriceHistoryPoint current = points.isEmpty() ? null : points.get(points.size() - 1);
+            if (current == null || !current.getPeriodStart().equals(periodStart)) {
+                points.add(PriceHistoryPoint.builder()
+                        .periodStart(periodStart)
+                        .min(sample.getPrice())
+                        .max(sample.getPrice())
+                        .last(sample.getPrice())
+                        .count(1)
+                        .build());
+            } else {
+                current.setMin(Math.min(current.getMin(), sample.getPrice()));
+                current.setMax(Math.max(current.getMax(), sample.getPrice()));
+                current.setLast(sample.getPrice());
+                current.setCount(current.getCount() + 1);
+            }
+        };
+
+        if (storage == Storage.DOCUMENTS) {
+            Query query = Query.query(rangeCriteria("storeItemId", storeItemId, "timestamp", from, to))
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"));
+            query.fields().include("timestamp", "price");
+            try (Stream<StorePrice> samples = mongoTemplate.stream(query, StorePrice.class)) {
+                samples.forEach(fold);
+            }
+        } else {
+            List<StorePrice> samples = getHistory(storeItemId, from, to);
+            for (int i = samples.size() - 1; i >= 0; i--) {
+                fold.accept(samples.get(i));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Nightly compaction in bucket mode: migrate leftover store_prices rows into buckets,
+     * then merge day buckets older than the retention window into month buckets.
+     * Every pod schedules it; only the pod holding the job_locks lease runs it, renewing the lease
+     * after each batch and stopping if it was lost.
+     */
+    @Scheduled(cron = "${smartbasket.prices.history.compaction-cron:0 30 3 * * *}")
+    public void compact() {
+        if (storage != Storage.BUCKETS) {
+            return;
+        }
+        if (!acquireLease()) {
+            log.debug("Price history compaction is running on another pod");
+            return;
+        }
+        try {
+            compactBatches();
+        } finally {
+            releaseLease();
+        }
+    }
+
+    private void compactBatches() {
+        Instant cutoff = monthCutoff();
+        long migratedRows = 0;
+        long compactedBuckets = 0;
+
+        List<StorePrice> rows;
+        do {
+            rows = mongoTemplate.find(new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(COMPACTION_BATCH_SIZE),
+                    StorePrice.class);
+            if (!rows.isEmpty()) {
+                // A rerun after a crash before the delete finds the same batch and skips the buckets it reached
+                String batch = "rows:" + rows.get(0).getId() + "-" + rows.get(rows.size() - 1).getId();
+                appendToBuckets(rows, cutoff, row -> batch);
+                List<String> ids = rows.stream().map(StorePrice::getId).toList();
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), StorePrice.class);
+                migratedRows += rows.size();
+                if (!renewLease()) {
+                    return;
+                }
+            }
+        } while (rows.size() == COMPACTION_BATCH_SIZE);
+
+        List<StorePriceBucket> dayBuckets;
+        do {
+            dayBuckets = mongoTemplate.find(Query.query(Criteria.where("granularity").is(Granularity.DAY)
+                            .and("bucketStart").lt(cutoff)).limit(COMPACTION_BATCH_SIZE),
+                    StorePriceBucket.class);
+            if (!dayBuckets.isEmpty()) {
+                // Each day bucket is appended to its month bucket once, even if the run stops before the remove
+                List<StorePrice> samples = new ArrayList<>();
+                Map<StorePrice, String> dayOf = new IdentityHashMap<>();
+                for (StorePriceBucket bucket : dayBuckets) {
+                    for (StorePrice sample : expand(bucket)) {
+                        samples.add(sample);
+                        dayOf.put(sample, "day:" + bucket.getId());
+                    }
+                }
+                samples.sort(Comparator.comparing(StorePrice::getTimestamp));
+                appendToBuckets(samples, cutoff, dayOf::get);
+                mongoTemplate.remove(Query.query(Criteria.where("_id")
+                        .in(dayBuckets.stream().map(StorePriceBucket::getId).toList())), StorePriceBucket.class);
+                compactedBuckets += dayBuckets.size();
+                if (!renewLease()) {
+                    return;
+                }
+            }
+        } while (dayBuckets.size() == COMPACTION_BATCH_SIZE);
+
+        if (migratedRows > 0 || compactedBuckets > 0) {
+            log.info("Price history compaction: migrated {} rows, folded {} day buckets into month buckets",
+                    migratedRows, compactedBuckets);
+        }
+    }
+
+    /**
+     * Take the compaction lease if it is free, expired or already ours
+     */
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(COMPACTION_LOCK).orOperator(
+                            Criteria.where("lockedUntil").lt(now),
+                            Criteria.where("owner").is(lockOwner))),
+                    new Update().set("owner", lockOwner).set("lockedUntil", now.plus(compactionLease)),
+                    LOCK_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The lock document exists and another owner's lease has not expired
+            return false;
+        }
+    }
+
+    private boolean renewLease() {
+        boolean renewed = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(COMPACTION_LOCK).and("owner").is(lockOwner)),
+                new Update().set("lockedUntil", Instant.now().plus(compactionLease)),
+                LOCK_COLLECTION).getModifiedCount() > 0;
+        if (!renewed) {
+            log.warn("Price history compaction lease lost, stopping; the next run continues where this one stopped");
+        }
+        return renewed;
+    }
+
+    private void releaseLease() {
+        try {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(COMPACTION_LOCK).and("owner").is(lockOwner)),
+                    new Update().set("lockedUntil", Instant.now()),
+                    LOCK_COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("Price history compaction lease not released, it expires in {}: {}", compactionLease, e.getMessage());
+        }
+    }
+
+    /**
+     * Samples within [from, to], newest first, reading buckets newest first and stopping
+     * once at least minSamples were collected. Buckets never overlap in time, so every sample
+     * newer than the last one returned is included.
+     */
+    private List<StorePrice> readBucketsUntil(String storeItemId, Instant from, Instant to, int minSamples) {
+        // A month bucket starts before any day inside it, so widen the lower bound to the month start
+        Query query = Query.query(rangeCriteria("storeItemId", storeItemId, "bucketStart",
+                        from != null ? bucketStart(from, Granularity.MONTH) : null, to))
+                .with(Sort.by(Sort.Direction.DESC, "bucketStart"));
+
+        List<StorePrice> history = new ArrayList<>();
+        try (Stream<StorePriceBucket> buckets = mongoTemplate.stream(query, StorePriceBucket.class)) {
+            Iterator<StorePriceBucket> iterator = buckets.iterator();
+            while (iterator.hasNext() && history.size() < minSamples) {
+                List<StorePrice> samples = expand(iterator.next());
+                samples.sort(Comparator.comparing(StorePrice::getTimestamp).reversed());
+                for (StorePrice sample : samples) {
+                    Instant timestamp = sample.getTimestamp();
+                    if ((from == null || !timestamp.isBefore(from)) && (to == null || !timestamp.isAfter(to))) {
+                        history.add(sample);
+                    }
+                }
+            }
+        }
+        return history;
+    }
+
+    private static Criteria rangeCriteria(String keyField, String key, String rangeField, Instant from, Instant to) {
+        Criteria criteria = Criteria.where(keyField).is(key);
+        if (from != null || to != null) {
+            criteria = criteria.and(rangeField);
+            if (from != null) {
+                criteria = criteria.gte(from);
+            }
+            if (to != null) {
+                criteria = criteria.lte(to);
+            }
+        }
+        return criteria;
+    }
+
+    /**
+     * Upsert samples into their buckets with one unordered bulk.
+     * Samples older than monthCutoff go to month buckets, newer ones to day buckets.
+     * <p>
+     * Samples with a source (a compaction batch) are appended at most once per source: the bucket
+     * records the sources it has taken, and an append whose source is already there matches no
+     * bucket, so its upsert runs into the unique bucket key and is dropped.
+     */
+    private void appendToBuckets(List<StorePrice> rows, Instant monthCutoff, Function<StorePrice, String> sourceOf) {
+        Map<String, List<StorePrice>> byBucket = new LinkedHashMap<>();
+        for (StorePrice row : rows) {
+            Granularity granularity = row.getTimestamp().isBefore(monthCutoff) ? Granularity.MONTH : Granularity.DAY;
+            String key = row.getStoreItemId() + "|" + granularity + "|" + bucketStart(row.getTimestamp(), granularity)
+                    + "|" + sourceOf.apply(row);
+            byBucket.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        }
+
+        List<List<StorePrice>> groups = new ArrayList<>(byBucket.values());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StorePriceBucket.class);
+        for (List<StorePrice> samples : groups) {
+            StorePrice first = samples.get(0);
+            Granularity granularity = first.getTimestamp().isBefore(monthCutoff) ? Granularity.MONTH : Granularity.DAY;
+            Criteria bucket = Criteria.where("storeItemId").is(first.getStoreItemId())
+                    .and("granularity").is(granularity)
+                    .and("bucketStart").is(bucketStart(first.getTimestamp(), granularity));
+            Update update = new Update().inc("count", samples.size());
+            String source = sourceOf.apply(first);
+            if (source != null) {
+                bucket.and("sources").ne(source);
+                update.addToSet("sources", source);
+            }
+            Query query = Query.query(bucket);
+            update.push("timestamps").each(samples.stream().map(StorePrice::getTimestamp).toArray());
+            update.push("prices").each(samples.stream().map(StorePrice::getPrice).toArray());
+            update.push("originalPrices").each(samples.stream().map(StorePrice::getOriginalPrice).toArray());
+            update.push("promotions").each(samples.stream().map(StorePrice::isPromotion).toArray());
+            update.push("currencies").each(samples.stream().map(StorePrice::getCurrency).toArray());
+            bulk.upsert(query, update);
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            boolean onlyAlreadyAppended = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY
+                    && sourceOf.apply(groups.get(error.getIndex()).get(0)) != null);
+            if (!onlyAlreadyAppended) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Samples of a bucket in stored order. Samples sharing a timestamp always share a bucket and
+     * keep their relative order when compacted, so their ordinal makes a stable id.
+     */
+    private static List<StorePrice> expand(StorePriceBucket bucket) {
+        List<StorePrice> samples = new ArrayList<>(bucket.getTimestamps().size());
+        Map<Instant, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < bucket.getTimestamps().size(); i++) {
+            Instant timestamp = bucket.getTimestamps().get(i);
+            int ordinal = ordinals.merge(timestamp, 1, Integer::sum) - 1;
+            samples.add(StorePrice.builder()
+                    .id(bucket.getStoreItemId() + "-" + timestamp.toEpochMilli() + "-" + ordinal)
+                    .storeItemId(bucket.getStoreItemId())
+                    .timestamp(timestamp)
+                    .price(bucket.getPrices().get(i))
+                    .originalPrice(bucket.getOriginalPrices().get(i))
+                    .isPromotion(Boolean.TRUE.equals(bucket.getPromotions().get(i)))
+                    .currency(bucket.getCurrencies().get(i))
+                    .build());
+        }
+        return samples;
+    }
+
+    private Instant monthCutoff() {
+        return Instant.now().minus(dayBucketRetention).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    private static Instant bucketStart(Instant timestamp, Granularity granularity) {
+        if (granularity == Granularity.DAY) {
+            return timestamp.truncatedTo(ChronoUnit.DAYS);
+        }
+        return timestamp.atZone(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
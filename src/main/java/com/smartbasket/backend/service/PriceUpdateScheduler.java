@@ -0,0 +1,233 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.config.MongoCommandMonitor;
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest.PriceEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes price updates to single-threaded lanes by storeItemId hash.
+ * <p>
+ * All writes for one store item go through the same lane in submission order, so history order
+ * always matches cache order and concurrent requests can no longer clobber each other.
+ * Each lane drains whatever has queued up into one micro-batch for {@link PriceBatchWriter},
+ * so a burst of updates to the same item ends in a single cached-price write. Lanes run in
+ * parallel, one per core by default. A micro-batch that fails as a whole is retried entry by
+ * entry, so one bad entry only fails itself; the writer only throws before it has written
+ * anything, so the retry never writes an entry (or its history) twice.
+ * <p>
+ * The Mongo work of a micro-batch is counted in the request stats of every request that has
+ * entries in it (see {@link MongoCommandMonitor}).
+ * <p>
+ * Metrics: prices.batch / prices.batch.size per submitted batch, prices.entry.latency from
+ * enqueue to written, and prices.write (by outcome) / prices.write.batch.size per micro-batch.
+ */
+@Slf4j
+@Component
+public class PriceUpdateScheduler {
+
+    private final PriceBatchWriter priceBatchWriter;
+    private final Lane[] lanes;
+    private final int maxBatchSize;
+
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final Timer entryLatency;
+    private final Timer writeSucceeded;
+    private final Timer writeFailed;
+    private final DistributionSummary writeBatchSize;
+
+    public PriceUpdateScheduler(
+            PriceBatchWriter priceBatchWriter,
+            MeterRegistry meterRegistry,
+            @Value("${smartbasket.prices.scheduler.lanes:0}") int laneCount,
+            @Value("${smartbasket.prices.scheduler.max-batch-size:500}") int maxBatchSize,
+            @Value("${smartbasket.prices.scheduler.queue-capacity:10000}") int queueCapacity) {
+        this.priceBatchWriter = priceBatchWriter;
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchTimer = Timer.builder("prices.batch")
+                .description("Time to apply one submitted batch of price updates")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("prices.batch.size")
+                .description("Entries per submitted batch of price updates")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.entryLatency = Timer.builder("prices.entry.latency")
+                .description("Time from queueing a price update to it being written")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.writeSucceeded = writeTimer(meterRegistry, "success");
+        this.writeFailed = writeTimer(meterRegistry, "failure");
+        this.writeBatchSize = DistributionSummary.builder("prices.write.batch.size")
+                .description("Entries per micro-batch written by a lane")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i, queueCapacity);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.start();
+        }
+    }
+
+    private static Timer writeTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("prices.write")
+                .description("Time to write one lane micro-batch")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue one entry on its lane. Blocks while that lane's queue is full.
+     */
+    public CompletableFuture<PriceBatchWriter.Outcome> submit(PriceEntry entry, boolean skipUnchanged) {
+        Task task = new Task(entry, skipUnchanged, System.nanoTime(), MongoCommandMonitor.current(),
+                new CompletableFuture<>());
+        Lane lane = lanes[Math.floorMod(entry.getStoreItemId().hashCode(), lanes.length)];
+        try {
+            lane.queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.result.completeExceptionally(e);
+        }
+        return task.result;
+    }
+
+    /**
+     * Queue all entries and wait for them; outcomes are returned in entry order
+     */
+    public List<PriceBatchWriter.Outcome> submitAll(List<PriceEntry> entries, boolean skipUnchanged) {
+        long start = System.nanoTime();
+        batchSize.record(entries.size());
+        List<CompletableFuture<PriceBatchWriter.Outcome>> futures = new ArrayList<>(entries.size());
+        for (PriceEntry entry : entries) {
+            futures.add(submit(entry, skipUnchanged));
+        }
+
+        List<PriceBatchWriter.Outcome> outcomes = new ArrayList<>(entries.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                outcomes.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                outcomes.add(new PriceBatchWriter.Outcome(entries.get(i).getStoreItemId(), null, false, cause.getMessage()));
+            }
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return outcomes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.interrupt();
+        }
+    }
+
+    private record Task(PriceEntry entry, boolean skipUnchanged, long enqueuedNanos,
+                        MongoCommandMonitor.RequestStats stats, CompletableFuture<PriceBatchWriter.Outcome> result) {
+    }
+
+    private final class Lane extends Thread {
+        private final BlockingQueue<Task> queue;
+
+        Lane(int index, int queueCapacity) {
+            super("price-lane-" + index);
+            setDaemon(true);
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        }
+
+        @Override
+        public void run() {
+            List<Task> batch = new ArrayList<>(maxBatchSize);
+            while (!isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, maxBatchSize - 1);
+
+                // Keep submission order; only split where the write mode changes
+                int from = 0;
+                for (int i = 1; i <= batch.size(); i++) {
+                    if (i == batch.size() || batch.get(i).skipUnchanged() != batch.get(from).skipUnchanged()) {
+                        write(batch.subList(from, i));
+                        from = i;
+                    }
+                }
+                batch.clear();
+            }
+            for (Task pending : queue) {
+                pending.result().completeExceptionally(new IllegalStateException("Price scheduler is shutting down"));
+            }
+        }
+
+        private void write(List<Task> tasks) {
+            writeBatchSize.record(tasks.size());
+            long start = System.nanoTime();
+            try {
+                List<PriceBatchWriter.Outcome> outcomes = writeCounted(tasks);
+                long end = System.nanoTime();
+                writeSucceeded.record(end - start, TimeUnit.NANOSECONDS);
+                for (int i = 0; i < tasks.size(); i++) {
+                    entryLatency.record(end - tasks.get(i).enqueuedNanos(), TimeUnit.NANOSECONDS);
+                    tasks.get(i).result().complete(outcomes.get(i));
+                }
+            } catch (RuntimeException e) {
+                writeFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (tasks.size() > 1) {
+                    log.warn("Price lane {} failed to write {} entries, retrying them one by one: {}",
+                            getName(), tasks.size(), e.getMessage());
+                    tasks.forEach(task -> write(List.of(task)));
+                } else {
+                    log.warn("Price lane {} failed to write {}: {}",
+                            getName(), tasks.get(0).entry().getStoreItemId(), e.getMessage());
+                    tasks.get(0).result().completeExceptionally(e);
+                }
+            }
+        }
+
+        /**
+         * Write the tasks, then add the Mongo work to each submitting request before any of them is released
+         */
+        private List<PriceBatchWriter.Outcome> writeCounted(List<Task> tasks) {
+            MongoCommandMonitor.RequestStats batchStats = MongoCommandMonitor.begin();
+            try {
+                return priceBatchWriter.write(tasks.stream().map(Task::entry).toList(), tasks.get(0).skipUnchanged());
+            } finally {
+                MongoCommandMonitor.end();
+                tasks.stream()
+                        .map(Task::stats)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .forEach(stats -> stats.add(batchStats));
+            }
+        }
+    }
+}
@@ -2,95 +2,79 @@ package com.smartbasket.backend.service;
 
 import com.smartbasket.backend.dto.BatchPriceUpdateRequest;
 import com.smartbasket.backend.dto.BatchPriceUpdateResponse;
-import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.dto.PriceHistoryPage;
+import com.smartbasket.backend.dto.PriceHistoryPoint;
 import com.smartbasket.backend.model.StorePrice;
-import com.smartbasket.backend.repository.StoreItemRepository;
-import com.smartbasket.backend.repository.StorePriceRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class PriceUpdateService {
 
-    private final StoreItemRepository storeItemRepository;
-    private final StorePriceRepository storePriceRepository;
-
-    private static final String DEFAULT_CURRENCY = "JOD";
+    private final PriceHistoryService priceHistoryService;
+    private final PriceUpdateScheduler priceUpdateScheduler;
 
     /**
-     * Update a single item's price
+     * Update a single item's price.
+     * Goes through the item's scheduler lane so it is ordered with any concurrent update of the same item.
      */
-    @Transactional
     public StorePrice updatePrice(String storeItemId, Double price, Double originalPrice, String currency, Boolean isPromotion) {
-        Optional<StoreItem> optItem = storeItemRepository.findById(storeItemId);
-        if (optItem.isEmpty()) {
-            throw new IllegalArgumentException("Store item not found: " + storeItemId);
-        }
-
-        StoreItem storeItem = optItem.get();
-        String effectiveCurrency = currency != null ? currency : DEFAULT_CURRENCY;
-        boolean effectivePromotion = isPromotion != null ? isPromotion : false;
-        Instant now = Instant.now();
-
-        // 1. Create price history record
-        StorePrice priceRecord = StorePrice.builder()
+        BatchPriceUpdateRequest.PriceEntry entry = BatchPriceUpdateRequest.PriceEntry.builder()
                 .storeItemId(storeItemId)
                 .price(price)
                 .originalPrice(originalPrice)
-                .currency(effectiveCurrency)
-                .isPromotion(effectivePromotion)
-                .timestamp(now)
+                .currency(currency)
+                .isPromotion(isPromotion)
                 .build();
-        StorePrice savedPrice = storePriceRepository.save(priceRecord);
-
-        // 2. Update cached price on StoreItem
-        storeItem.setDiscountPrice(price);
-        storeItem.setOriginalPrice(originalPrice);
-        storeItem.setCurrency(effectiveCurrency);
-        storeItem.setIsPromotion(effectivePromotion);
-        storeItem.setLastPriceUpdate(now);
-        storeItemRepository.save(storeItem);
 
-        return savedPrice;
+        PriceBatchWriter.Outcome outcome = priceUpdateScheduler.submitAll(List.of(entry), false).get(0);
+        if (!outcome.success()) {
+            throw new IllegalArgumentException(outcome.error());
+        }
+        return outcome.price();
     }
 
     /**
-     * Batch update prices for multiple items
+     * Batch update prices for multiple items.
+     * Entries are spread over the scheduler lanes and written in micro-batches; results are still reported per entry.
      */
-    @Transactional
     public BatchPriceUpdateResponse batchUpdatePrices(BatchPriceUpdateRequest request) {
         List<BatchPriceUpdateResponse.PriceUpdateResult> results = new ArrayList<>();
         int successCount = 0;
         int failureCount = 0;
+        int unchangedCount = 0;
 
-        for (BatchPriceUpdateRequest.PriceEntry entry : request.getPrices()) {
-            try {
-                updatePrice(
-                        entry.getStoreItemId(),
-                        entry.getPrice(),
-                        entry.getOriginalPrice(),
-                        entry.getCurrency(),
-                        entry.getIsPromotion()
-                );
+        boolean skipUnchanged = request.getSkipUnchanged() != null && request.getSkipUnchanged();
+        List<PriceBatchWriter.Outcome> outcomes = priceUpdateScheduler.submitAll(request.getPrices(), skipUnchanged);
+        for (int i = 0; i < outcomes.size(); i++) {
+            PriceBatchWriter.Outcome outcome = outcomes.get(i);
+            if (outcome.success() && outcome.unchanged()) {
+                results.add(BatchPriceUpdateResponse.PriceUpdateResult.builder()
+                        .storeItemId(outcome.storeItemId())
+                        .success(true)
+                        .message("Price unchanged")
+                        .newPrice(request.getPrices().get(i).getPrice())
+                        .build());
+                successCount++;
+                unchangedCount++;
+            } else if (outcome.success()) {
                 results.add(BatchPriceUpdateResponse.PriceUpdateResult.builder()
-                        .storeItemId(entry.getStoreItemId())
+                        .storeItemId(outcome.storeItemId())
                         .success(true)
                         .message("Price updated successfully")
-                        .newPrice(entry.getPrice())
+                        .newPrice(request.getPrices().get(i).getPrice())
                         .build());
                 successCount++;
-            } catch (Exception e) {
+            } else {
                 results.add(BatchPriceUpdateResponse.PriceUpdateResult.builder()
-                        .storeItemId(entry.getStoreItemId())
+                        .storeItemId(outcome.storeItemId())
                         .success(false)
-                        .message(e.getMessage())
+                        .message(outcome.error())
                         .build());
                 failureCount++;
             }
@@ -100,14 +84,30 @@ public class PriceUpdateService {
                 .totalRequested(request.getPrices().size())
                 .successCount(successCount)
                 .failureCount(failureCount)
+                .unchangedCount(unchangedCount)
                 .results(results)
                 .build();
     }
 
     /**
-     * Get price history for a store item
+     * Get price history for a store item, optionally limited to [from, to]
+     */
+    public List<StorePrice> getPriceHistory(String storeItemId, Instant from, Instant to) {
+        return priceHistoryService.getHistory(storeItemId, from, to);
+    }
+
+    /**
+     * Get one page of price history, newest first
+     */
+    public PriceHistoryPage getPriceHistoryPage(String storeItemId, Instant from, Instant to, String cursor, int limit) {
+        return priceHistoryService.getHistoryPage(storeItemId, from, to, cursor, limit);
+    }
+
+    /**
+     * Get price history folded into min / max / last per hour or day
      */
-    public List<StorePrice> getPriceHistory(String storeItemId) {
-        return storePriceRepository.findByStoreItemIdOrderByTimestampDesc(storeItemId);
+    public List<PriceHistoryPoint> getDownsampledPriceHistory(String storeItemId, Instant from, Instant to,
+                                                              PriceHistoryPoint.Interval interval) {
+        return priceHistoryService.getDownsampledHistory(storeItemId, from, to, interval);
     }
 }
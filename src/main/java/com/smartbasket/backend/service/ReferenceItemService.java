@@ -1,7 +1,18 @@
 package com.smartbasket.backend.service;
 
+import com.smartbasket.backend.cache.BarcodeIndex;
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.cache.PriceMatrix;
+import com.smartbasket.backend.cache.SearchIndex;
+import com.smartbasket.backend.cache.StoreItemVersion;
+import com.smartbasket.backend.cache.SuggestionIndex;
+import com.smartbasket.backend.dto.ItemSuggestionDto;
 import com.smartbasket.backend.dto.CreateReferenceItemRequest;
 import com.smartbasket.backend.dto.ReferenceItemDto;
+import com.smartbasket.backend.event.CatalogEvent;
+import com.smartbasket.backend.event.CatalogEventBus;
 import com.smartbasket.backend.exception.ResourceNotFoundException;
 import com.smartbasket.backend.mapper.ReferenceItemMapper;
 import com.smartbasket.backend.model.Category;
@@ -9,16 +20,26 @@ import com.smartbasket.backend.model.ReferenceItem;
 import com.smartbasket.backend.repository.CategoryRepository;
 import com.smartbasket.backend.repository.ReferenceItemRepository;
 import com.smartbasket.backend.repository.StoreItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,31 +49,110 @@ public class ReferenceItemService {
     private final CategoryRepository categoryRepository;
     private final StoreItemRepository storeItemRepository;
     private final ReferenceItemMapper referenceItemMapper;
+    private final PriceMatrix priceMatrix;
+    private final ReferenceDataCache referenceDataCache;
+    private final SearchIndex searchIndex;
+    private final BarcodeIndex barcodeIndex;
+    private final BasketResultCache basketResultCache;
+    private final StoreItemVersion storeItemVersion;
+    private final SuggestionIndex suggestionIndex;
+    private final MongoTemplate mongoTemplate;
+    private final CatalogEventBus catalogEventBus;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> catalogTimers = new ConcurrentHashMap<>();
 
     public List<ReferenceItemDto> getAllItems() {
-        return referenceItemRepository.findAll()
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? snapshot.referenceItems() : referenceItemRepository.findAll())
                 .stream()
                 .map(referenceItemMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Map every item to the consumer from the snapshot, or straight from a Mongo cursor
+     * without materializing the list
+     */
+    public void streamAllItems(Consumer<ReferenceItemDto> consumer) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            snapshot.referenceItems().stream().map(referenceItemMapper::toDto).forEach(consumer);
+            return;
+        }
+        try (Stream<ReferenceItem> items = mongoTemplate.stream(new Query(), ReferenceItem.class)) {
+            items.map(referenceItemMapper::toDto).forEach(consumer);
+        }
+    }
+
     public Optional<ReferenceItemDto> getItemById(String id) {
-        return referenceItemRepository.findById(id)
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Optional.ofNullable(snapshot.referenceItem(id)) : referenceItemRepository.findById(id))
                 .map(referenceItemMapper::toDto);
     }
 
     public List<ReferenceItemDto> getItemsByCategory(String categoryId) {
-        return referenceItemRepository.findByCategoryId(categoryId)
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? snapshot.referenceItemsInCategory(categoryId) : referenceItemRepository.findByCategoryId(categoryId))
                 .stream()
                 .map(referenceItemMapper::toDto)
                 .collect(Collectors.toList());
     }
 
-    public List<ReferenceItemDto> searchItems(String query) {
-        return referenceItemRepository.findByNameContainingIgnoreCase(query)
-                .stream()
+    /**
+     * Ranked search over names, category, brands and barcodes; falls back to a name regex
+     * on Mongo until the search index has loaded. Timed as catalog.search by source.
+     */
+    public List<ReferenceItemDto> searchItems(String query, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean indexed = searchIndex.isReady();
+        List<ReferenceItem> items = indexed
+                ? searchIndex.search(query, limit)
+                : referenceItemRepository.findByNameContainingIgnoreCase(query).stream().limit(limit).toList();
+        List<ReferenceItemDto> results = items.stream()
                 .map(referenceItemMapper::toDto)
                 .collect(Collectors.toList());
+        sample.stop(catalogTimer("catalog.search", indexed));
+        return results;
+    }
+
+    /**
+     * Typeahead suggestions for active items; falls back to a name prefix query on Mongo
+     * until the suggestion index has loaded. Timed as catalog.suggest by source.
+     */
+    public List<ItemSuggestionDto> suggestItems(String query, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        if (suggestionIndex.isReady()) {
+            List<ItemSuggestionDto> suggestions = suggestionIndex.suggest(query, limit);
+            sample.stop(catalogTimer("catalog.suggest", true));
+            return suggestions;
+        }
+
+        String prefix = "^" + Pattern.quote(query.trim());
+        Query mongoQuery = Query.query(new Criteria().andOperator(
+                Criteria.where("active").is(true),
+                new Criteria().orOperator(
+                        Criteria.where("name").regex(prefix, "i"),
+                        Criteria.where("nameAr").regex(prefix, "i"))));
+        mongoQuery.fields().include("name", "nameAr").slice("images", 1);
+        mongoQuery.limit(limit);
+        List<ItemSuggestionDto> suggestions = mongoTemplate.find(mongoQuery, ReferenceItem.class).stream()
+                .map(item -> ItemSuggestionDto.builder()
+                        .id(item.getId())
+                        .name(item.getName())
+                        .nameAr(item.getNameAr())
+                        .thumbnail(item.getImages() != null && !item.getImages().isEmpty() ? item.getImages().get(0) : null)
+                        .build())
+                .toList();
+        sample.stop(catalogTimer("catalog.suggest", false));
+        return suggestions;
+    }
+
+    private Timer catalogTimer(String name, boolean indexed) {
+        String source = indexed ? "index" : "mongo";
+        return catalogTimers.computeIfAbsent(name + "." + source, key -> Timer.builder(name)
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
     }
 
     public ReferenceItemDto createItem(CreateReferenceItemRequest request) {
@@ -63,6 +163,10 @@ public class ReferenceItemService {
         entity.setCategory(categoryName); // Set denormalized category name
         
         ReferenceItem saved = referenceItemRepository.save(entity);
+        referenceDataCache.putReferenceItem(saved);
+        searchIndex.putReferenceItem(saved);
+        suggestionIndex.putReferenceItem(saved);
+        catalogEventBus.publish(CatalogEvent.referenceItemSaved(saved));
         return referenceItemMapper.toDto(saved);
     }
 
@@ -100,12 +204,20 @@ public class ReferenceItemService {
                         storesToRemove.removeAll(newSpecificStoreIds);
                         if (!storesToRemove.isEmpty()) {
                             storeItemRepository.deleteByReferenceItemIdAndStoreIdIn(id, new ArrayList<>(storesToRemove));
+                            priceMatrix.removeReferenceItem(id, storesToRemove);
+                            searchIndex.removeStoreItems(id, storesToRemove);
+                            barcodeIndex.removeReferenceItem(id, storesToRemove);
+                            storeItemVersion.changed();
                         }
                     }
                     
                     // If stores were explicitly removed from specificStoreIds, cascade delete
                     if (!removedStoreIds.isEmpty() && !willBeAvailableInAll) {
                         storeItemRepository.deleteByReferenceItemIdAndStoreIdIn(id, new ArrayList<>(removedStoreIds));
+                        priceMatrix.removeReferenceItem(id, removedStoreIds);
+                        searchIndex.removeStoreItems(id, removedStoreIds);
+                        barcodeIndex.removeReferenceItem(id, removedStoreIds);
+                        storeItemVersion.changed();
                     }
                     
                     // Apply all field updates
@@ -121,7 +233,13 @@ public class ReferenceItemService {
                     }
                     existing.setSpecificStoreIds(request.getSpecificStoreIds() != null ? request.getSpecificStoreIds() : existing.getSpecificStoreIds());
                     
-                    return referenceItemRepository.save(existing);
+                    ReferenceItem saved = referenceItemRepository.save(existing);
+                    referenceDataCache.putReferenceItem(saved);
+                    searchIndex.putReferenceItem(saved);
+                    suggestionIndex.putReferenceItem(saved);
+                    basketResultCache.bumpItem(saved.getId());
+                    catalogEventBus.publish(CatalogEvent.referenceItemSaved(saved));
+                    return saved;
                 })
                 .map(referenceItemMapper::toDto);
     }
@@ -132,6 +250,14 @@ public class ReferenceItemService {
             // Also delete all StoreItems linked to this reference item
             storeItemRepository.deleteAll(storeItemRepository.findByReferenceItemId(id));
             referenceItemRepository.deleteById(id);
+            priceMatrix.removeReferenceItem(id, null);
+            barcodeIndex.removeReferenceItem(id, null);
+            storeItemVersion.changed();
+            referenceDataCache.removeReferenceItem(id);
+            searchIndex.removeReferenceItem(id);
+            suggestionIndex.removeReferenceItem(id);
+            basketResultCache.bumpItem(id);
+            catalogEventBus.publish(CatalogEvent.referenceItemDeleted(id));
             return true;
         }
         return false;
@@ -141,7 +267,13 @@ public class ReferenceItemService {
         return referenceItemRepository.findById(id)
                 .map(existing -> {
                     existing.setActive(!existing.isActive());
-                    return referenceItemRepository.save(existing);
+                    ReferenceItem saved = referenceItemRepository.save(existing);
+                    referenceDataCache.putReferenceItem(saved);
+                    searchIndex.putReferenceItem(saved);
+                    suggestionIndex.putReferenceItem(saved);
+                    basketResultCache.bumpItem(saved.getId());
+                    catalogEventBus.publish(CatalogEvent.referenceItemSaved(saved));
+                    return saved;
                 })
                 .map(referenceItemMapper::toDto);
     }
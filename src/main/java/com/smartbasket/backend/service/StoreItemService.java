@@ -1,7 +1,16 @@
 package com.smartbasket.backend.service;
 
+import com.smartbasket.backend.cache.BarcodeIndex;
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.cache.PriceMatrix;
+import com.smartbasket.backend.cache.SearchIndex;
+import com.smartbasket.backend.cache.StoreItemVersion;
 import com.smartbasket.backend.dto.CreateStoreItemRequest;
 import com.smartbasket.backend.dto.StoreItemDto;
+import com.smartbasket.backend.event.CatalogEvent;
+import com.smartbasket.backend.event.CatalogEventBus;
 import com.smartbasket.backend.exception.ResourceNotFoundException;
 import com.smartbasket.backend.model.Store;
 import com.smartbasket.backend.model.StoreItem;
@@ -9,16 +18,31 @@ import com.smartbasket.backend.model.ReferenceItem;
 import com.smartbasket.backend.repository.StoreItemRepository;
 import com.smartbasket.backend.repository.StoreRepository;
 import com.smartbasket.backend.repository.ReferenceItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,28 +51,111 @@ public class StoreItemService {
     private final StoreItemRepository storeItemRepository;
     private final ReferenceItemRepository referenceItemRepository;
     private final StoreRepository storeRepository;
+    private final PriceMatrix priceMatrix;
+    private final ReferenceDataCache referenceDataCache;
+    private final SearchIndex searchIndex;
+    private final BarcodeIndex barcodeIndex;
+    private final BasketResultCache basketResultCache;
+    private final StoreItemVersion storeItemVersion;
+    private final MongoTemplate mongoTemplate;
+    private final CatalogEventBus catalogEventBus;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> barcodeTimers = new ConcurrentHashMap<>();
 
     private static final String DEFAULT_CURRENCY = "JOD";
 
     /**
-     * Get all store items
+     * Get store items, optionally filtered and paginated by id (keyset pagination).
+     * Every argument may be null; without a limit all matching items are returned.
+     *
+     * @param afterId return only items after this id (the last id of the previous page)
+     * @param fields  StoreItemDto fields to load, null or empty for all; the others stay null
      */
-    public List<StoreItemDto> getAll() {
-        List<StoreItem> items = storeItemRepository.findAll();
-        
-        // Build lookup maps for names
-        Map<String, String> storeNames = storeRepository.findAll()
-                .stream()
-                .collect(Collectors.toMap(Store::getId, Store::getName));
-        Map<String, String> refItemNames = referenceItemRepository.findAll()
-                .stream()
-                .collect(Collectors.toMap(ReferenceItem::getId, ReferenceItem::getName));
-        
-        return items.stream()
-                .map(item -> toDto(item, 
-                        storeNames.getOrDefault(item.getStoreId(), "Unknown"),
-                        refItemNames.getOrDefault(item.getReferenceItemId(), "Unknown")))
-                .collect(Collectors.toList());
+    public List<StoreItemDto> getAll(String storeId, String categoryId, Boolean promotion,
+                                     String afterId, Integer limit, Set<String> fields) {
+        List<Criteria> filters = new ArrayList<>();
+        if (storeId != null) {
+            filters.add(Criteria.where("storeId").is(storeId));
+        }
+        if (categoryId != null) {
+            filters.add(Criteria.where("referenceItemId").in(referenceItemIdsInCategory(categoryId)));
+        }
+        if (promotion != null) {
+            filters.add(promotion ? Criteria.where("isPromotion").is(true) : Criteria.where("isPromotion").ne(true));
+        }
+        if (afterId != null) {
+            filters.add(Criteria.where("_id").gt(ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId));
+        }
+
+        Query query = filters.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(filters));
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (limit != null) {
+            query.limit(limit);
+        }
+        if (fields != null && !fields.isEmpty()) {
+            query.fields().include(toDocumentFields(fields));
+        }
+        List<StoreItem> items = mongoTemplate.find(query, StoreItem.class);
+
+        // Names are only resolved when asked for, from the reference data snapshot or until it is loaded from Mongo
+        boolean projected = fields != null && !fields.isEmpty();
+        boolean withStoreNames = !projected || fields.contains("storeName");
+        boolean withItemNames = !projected || fields.contains("referenceItemName");
+        Function<String, String> storeName = id -> null;
+        Function<String, String> itemName = id -> null;
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (withStoreNames) {
+            Map<String, String> storeNames = snapshot != null ? null : storeRepository.findAll()
+                    .stream()
+                    .collect(Collectors.toMap(Store::getId, Store::getName));
+            storeName = id -> Objects.requireNonNullElse(
+                    snapshot != null ? snapshot.storeName(id) : storeNames.get(id), "Unknown");
+        }
+        if (withItemNames) {
+            Map<String, String> refItemNames = snapshot != null ? null : referenceItemRepository.findAll()
+                    .stream()
+                    .collect(Collectors.toMap(ReferenceItem::getId, ReferenceItem::getName));
+            itemName = id -> Objects.requireNonNullElse(
+                    snapshot != null ? snapshot.referenceItemName(id) : refItemNames.get(id), "Unknown");
+        }
+
+        List<StoreItemDto> dtos = new ArrayList<>(items.size());
+        for (StoreItem item : items) {
+            StoreItemDto dto = toDto(item, storeName.apply(item.getStoreId()), itemName.apply(item.getReferenceItemId()));
+            if (projected && !fields.contains("images")) {
+                dto.setImages(null);
+            }
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    /**
+     * Map store items (all, or one store's) straight from a Mongo cursor to the consumer,
+     * without materializing the list
+     */
+    public void streamAll(String storeId, Consumer<StoreItemDto> consumer) {
+        Query query = storeId != null ? Query.query(Criteria.where("storeId").is(storeId)) : new Query();
+
+        Function<String, String> storeName;
+        Function<String, String> refItemName;
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            storeName = snapshot::storeName;
+            refItemName = snapshot::referenceItemName;
+        } else {
+            Map<String, String> storeNames = storeRepository.findAll().stream()
+                    .collect(Collectors.toMap(Store::getId, Store::getName));
+            Map<String, String> refItemNames = referenceItemRepository.findAll().stream()
+                    .collect(Collectors.toMap(ReferenceItem::getId, ReferenceItem::getName));
+            storeName = storeNames::get;
+            refItemName = refItemNames::get;
+        }
+
+        try (Stream<StoreItem> items = mongoTemplate.stream(query, StoreItem.class)) {
+            items.map(item -> toDto(item, storeName.apply(item.getStoreId()), refItemName.apply(item.getReferenceItemId())))
+                    .forEach(consumer);
+        }
     }
 
     /**
@@ -85,6 +192,12 @@ public class StoreItemService {
         }
 
         StoreItem saved = storeItemRepository.save(storeItem);
+        priceMatrix.put(saved);
+        searchIndex.putStoreItem(saved);
+        barcodeIndex.put(saved);
+        basketResultCache.bumpItem(saved.getReferenceItemId());
+        storeItemVersion.changed();
+        catalogEventBus.publish(CatalogEvent.storeItemSaved(saved));
 
         return toDto(saved, store.getName(), refItem.getName());
     }
@@ -105,18 +218,33 @@ public class StoreItemService {
         return enrichWithNames(items);
     }
 
+    /**
+     * Get the store items sharing a barcode across all stores, cheapest effective price first (unpriced last).
+     * Served from the barcode index once it is loaded, without images. Timed as catalog.barcode by source.
+     */
+    public List<StoreItemDto> getByBarcode(String barcode) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean indexed = barcodeIndex.isReady();
+        List<StoreItem> items = indexed
+                ? barcodeIndex.lookup(barcode)
+                : storeItemRepository.findByBarcode(barcode.trim());
+        // Same price the basket comparison uses: the original price when there is no discount
+        List<StoreItemDto> results = enrichWithNames(items.stream()
+                .sorted(Comparator.comparing(BasketPriceLoader::effectivePrice, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList());
+        sample.stop(barcodeTimers.computeIfAbsent(indexed ? "index" : "mongo", source -> Timer.builder("catalog.barcode")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry)));
+        return results;
+    }
+
     /**
      * Get a store item by ID
      */
     public Optional<StoreItemDto> getById(String id) {
         return storeItemRepository.findById(id)
-                .map(item -> {
-                    String storeName = storeRepository.findById(item.getStoreId())
-                            .map(Store::getName).orElse(null);
-                    String refItemName = referenceItemRepository.findById(item.getReferenceItemId())
-                            .map(ReferenceItem::getName).orElse(null);
-                    return toDto(item, storeName, refItemName);
-                });
+                .map(item -> enrichWithNames(List.of(item)).get(0));
     }
 
     /**
@@ -131,6 +259,12 @@ public class StoreItemService {
 
         StoreItem item = optItem.get();
         storeItemRepository.delete(item);
+        priceMatrix.remove(item);
+        searchIndex.removeStoreItem(item);
+        barcodeIndex.remove(item.getId());
+        basketResultCache.bumpItem(item.getReferenceItemId());
+        storeItemVersion.changed();
+        catalogEventBus.publish(CatalogEvent.storeItemDeleted(item));
         return true;
     }
 
@@ -142,6 +276,15 @@ public class StoreItemService {
             return List.of();
         }
 
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            return items.stream()
+                    .map(item -> toDto(item,
+                            snapshot.storeName(item.getStoreId()),
+                            snapshot.referenceItemName(item.getReferenceItemId())))
+                    .collect(Collectors.toList());
+        }
+
         // Batch fetch store and reference item names
         List<String> storeIds = items.stream().map(StoreItem::getStoreId).distinct().toList();
         List<String> refItemIds = items.stream().map(StoreItem::getReferenceItemId).distinct().toList();
@@ -158,7 +301,43 @@ public class StoreItemService {
                 .collect(Collectors.toList());
     }
 
-    private StoreItemDto toDto(StoreItem item, String storeName, String referenceItemName) {
+    private List<String> referenceItemIdsInCategory(String categoryId) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            return snapshot.referenceItemsInCategory(categoryId).stream().map(ReferenceItem::getId).toList();
+        }
+        Query query = Query.query(Criteria.where("categoryId").is(categoryId));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, ReferenceItem.class).stream().map(ReferenceItem::getId).toList();
+    }
+
+    /**
+     * Map requested StoreItemDto fields to the document fields they are built from
+     */
+    private static String[] toDocumentFields(Set<String> dtoFields) {
+        Set<String> documentFields = new HashSet<>();
+        for (String field : dtoFields) {
+            switch (field) {
+                case "storeName" -> documentFields.add("storeId");
+                case "referenceItemName" -> documentFields.add("referenceItemId");
+                case "discountPercentage" -> {
+                    documentFields.add("discountPrice");
+                    documentFields.add("originalPrice");
+                }
+                case "storeId", "referenceItemId", "name", "nameAr", "brand", "barcode", "images",
+                     "discountPrice", "originalPrice", "currency", "isPromotion", "lastPriceUpdate" -> documentFields.add(field);
+                default -> {
+                    // id is always returned; unknown fields are ignored
+                }
+            }
+        }
+        return documentFields.toArray(new String[0]);
+    }
+
+    /**
+     * Map a store item to its DTO with the given display names (also used by the reactive read tier)
+     */
+    public static StoreItemDto toDto(StoreItem item, String storeName, String referenceItemName) {
         Double discountPercentage = null;
         if (item.getOriginalPrice() != null && item.getDiscountPrice() != null && item.getOriginalPrice() > 0 && item.getDiscountPrice() > 0) {
             discountPercentage = ((item.getOriginalPrice() - item.getDiscountPrice()) / item.getOriginalPrice()) * 100;
@@ -1,7 +1,12 @@
 package com.smartbasket.backend.service;
 
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
 import com.smartbasket.backend.dto.CreateStoreRequest;
 import com.smartbasket.backend.dto.StoreDto;
+import com.smartbasket.backend.event.CatalogEvent;
+import com.smartbasket.backend.event.CatalogEventBus;
 import com.smartbasket.backend.mapper.StoreMapper;
 import com.smartbasket.backend.model.Store;
 import com.smartbasket.backend.repository.StoreRepository;
@@ -18,29 +23,38 @@ public class StoreService {
 
     private final StoreRepository storeRepository;
     private final StoreMapper storeMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final BasketResultCache basketResultCache;
+    private final CatalogEventBus catalogEventBus;
 
     public List<StoreDto> getAllStores() {
-        return storeRepository.findAll()
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? snapshot.stores() : storeRepository.findAll())
                 .stream()
                 .map(storeMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     public List<StoreDto> getActiveStores() {
-        return storeRepository.findByActiveTrue()
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? snapshot.activeStores() : storeRepository.findByActiveTrue())
                 .stream()
                 .map(storeMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     public Optional<StoreDto> getStoreById(String id) {
-        return storeRepository.findById(id)
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Optional.ofNullable(snapshot.store(id)) : storeRepository.findById(id))
                 .map(storeMapper::toDto);
     }
 
     public StoreDto createStore(CreateStoreRequest request) {
         Store entity = storeMapper.toEntity(request);
         Store saved = storeRepository.save(entity);
+        referenceDataCache.putStore(saved);
+        basketResultCache.bumpAll();
+        catalogEventBus.publish(CatalogEvent.storeSaved(saved));
         return storeMapper.toDto(saved);
     }
 
@@ -52,7 +66,11 @@ public class StoreService {
                     existing.setLocation(request.getLocation());
                     existing.setLocationAr(request.getLocationAr());
                     existing.setLogoUrl(request.getLogoUrl());
-                    return storeRepository.save(existing);
+                    Store saved = storeRepository.save(existing);
+                    referenceDataCache.putStore(saved);
+                    basketResultCache.bumpAll();
+                    catalogEventBus.publish(CatalogEvent.storeSaved(saved));
+                    return saved;
                 })
                 .map(storeMapper::toDto);
     }
@@ -61,7 +79,11 @@ public class StoreService {
         return storeRepository.findById(id)
                 .map(existing -> {
                     existing.setActive(!existing.isActive());
-                    return storeRepository.save(existing);
+                    Store saved = storeRepository.save(existing);
+                    referenceDataCache.putStore(saved);
+                    basketResultCache.bumpAll();
+                    catalogEventBus.publish(CatalogEvent.storeSaved(saved));
+                    return saved;
                 })
                 .map(storeMapper::toDto);
     }
@@ -69,6 +91,9 @@ public class StoreService {
     public boolean deleteStore(String id) {
         if (storeRepository.existsById(id)) {
             storeRepository.deleteById(id);
+            referenceDataCache.removeStore(id);
+            basketResultCache.bumpAll();
+            catalogEventBus.publish(CatalogEvent.storeDeleted(id));
             return true;
         }
         return false;
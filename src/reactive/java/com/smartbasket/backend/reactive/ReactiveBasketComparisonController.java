@@ -0,0 +1,23 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.dto.BasketComparisonRequest;
+import com.smartbasket.backend.dto.BasketComparisonResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/basket")
+@RequiredArgsConstructor
+public class ReactiveBasketComparisonController {
+
+    private final ReactiveBasketComparisonService basketComparisonService;
+
+    @PostMapping("/compare")
+    public Mono<BasketComparisonResponse> compareBasket(@Valid @RequestBody BasketComparisonRequest request) {
+        return basketComparisonService.compareBasket(request);
+    }
+}
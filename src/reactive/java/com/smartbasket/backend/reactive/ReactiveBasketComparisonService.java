@@ -0,0 +1,78 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.cache.SuggestionIndex;
+import com.smartbasket.backend.dto.BasketComparisonRequest;
+import com.smartbasket.backend.dto.BasketComparisonResponse;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.service.BasketComparisonService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking basket comparison. Basket items and active stores are read concurrently; store
+ * items come from one $in query over all active stores. The totals are computed by
+ * {@link BasketComparisonService#assemble}.
+ * <p>
+ * The resident price matrix is not used here: prices are written on the servlet pods, so a
+ * matrix on this tier would never be patched.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveBasketComparisonService {
+
+    private final ReactiveReferenceItemRepository referenceItemRepository;
+    private final ReactiveStoreRepository storeRepository;
+    private final ReactiveStoreItemRepository storeItemRepository;
+    private final BasketComparisonService basketComparisonService;
+    private final ReferenceDataCache referenceDataCache;
+    private final SuggestionIndex suggestionIndex;
+
+    public Mono<BasketComparisonResponse> compareBasket(BasketComparisonRequest request) {
+        Map<String, Integer> requestedQuantities = BasketComparisonService.basketQuantities(request);
+        boolean summaryOnly = Boolean.TRUE.equals(request.getSummaryOnly());
+        suggestionIndex.recordBasket(requestedQuantities.keySet());
+
+        Mono<List<ReferenceItem>> basketItems;
+        Mono<List<Store>> activeStores;
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            basketItems = Mono.just(snapshot.referenceItems(requestedQuantities.keySet()).stream()
+                    .filter(ReferenceItem::isActive)
+                    .toList());
+            activeStores = Mono.just(snapshot.activeStores());
+        } else {
+            basketItems = referenceItemRepository.findAllById(requestedQuantities.keySet())
+                    .filter(ReferenceItem::isActive)
+                    .collectList();
+            activeStores = storeRepository.findByActiveTrue().collectList();
+        }
+
+        return Mono.zip(basketItems, activeStores).flatMap(loaded -> {
+            List<ReferenceItem> items = loaded.getT1();
+            List<Store> stores = loaded.getT2();
+            return loadStoreItems(stores, items).map(storeItemsByStore -> basketComparisonService.assemble(
+                    items, requestedQuantities, stores, storeItemsByStore, summaryOnly, request.getTopK()));
+        });
+    }
+
+    private Mono<Map<String, Map<String, StoreItem>>> loadStoreItems(List<Store> stores, List<ReferenceItem> items) {
+        List<String> referenceItemIds = items.stream().map(ReferenceItem::getId).toList();
+        if (referenceItemIds.isEmpty() || stores.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return storeItemRepository.findForComparison(referenceItemIds, stores.stream().map(Store::getId).toList())
+                .collect(HashMap::new, (Map<String, Map<String, StoreItem>> byStore, StoreItem storeItem) ->
+                        byStore.computeIfAbsent(storeItem.getStoreId(), k -> new HashMap<>())
+                                .putIfAbsent(storeItem.getReferenceItemId(), storeItem));
+    }
+}
@@ -0,0 +1,113 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.dto.ReferenceItemDto;
+import com.smartbasket.backend.dto.StoreDto;
+import com.smartbasket.backend.dto.StoreItemDto;
+import com.smartbasket.backend.exception.ResourceNotFoundException;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Read endpoints of the reactive tier, on the same paths as the servlet controllers
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@CrossOrigin(origins = "*")
+public class ReactiveCatalogController {
+
+    private final ReactiveCatalogService catalogService;
+    private final int defaultPageSize;
+
+    public ReactiveCatalogController(ReactiveCatalogService catalogService,
+                                     @Value("${smartbasket.store-items.default-page-size:100}") int defaultPageSize) {
+        this.catalogService = catalogService;
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    @GetMapping("/items")
+    public Flux<ReferenceItemDto> getAllItems() {
+        return catalogService.getAllItems();
+    }
+
+    @GetMapping("/items/{id}")
+    public Mono<ResponseEntity<ReferenceItemDto>> getItemById(@PathVariable String id) {
+        return catalogService.getItemById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/items/category/{categoryId}")
+    public Flux<ReferenceItemDto> getItemsByCategory(@PathVariable String categoryId) {
+        return catalogService.getItemsByCategory(categoryId);
+    }
+
+    @GetMapping("/items/search")
+    public Flux<ReferenceItemDto> searchItems(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        return catalogService.searchItems(query, limit);
+    }
+
+    @GetMapping("/stores")
+    public Flux<StoreDto> getAllStores() {
+        return catalogService.getAllStores();
+    }
+
+    @GetMapping("/stores/active")
+    public Flux<StoreDto> getActiveStores() {
+        return catalogService.getActiveStores();
+    }
+
+    @GetMapping("/stores/{id}")
+    public Mono<StoreDto> getStoreById(@PathVariable String id) {
+        return catalogService.getStoreById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Store", "id", id)));
+    }
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Filtered store item listing, paged like the servlet listing: with a limit or a cursor the
+     * result is one page (smartbasket.store-items.default-page-size items when only the cursor is
+     * given) and the X-Next-Cursor header holds the cursor for the next page
+     */
+    @GetMapping("/store-items")
+    public Mono<ResponseEntity<List<StoreItemDto>>> getAllStoreItems(
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) Boolean promotion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(1000) Integer limit) {
+        Integer pageSize = limit != null ? limit : cursor != null ? defaultPageSize : null;
+        return catalogService.getStoreItems(storeId, categoryId, promotion, cursor, pageSize)
+                .collectList()
+                .map(items -> pageSize != null && items.size() == pageSize
+                        ? ResponseEntity.ok().header(NEXT_CURSOR_HEADER, items.get(items.size() - 1).getId()).body(items)
+                        : ResponseEntity.ok(items));
+    }
+
+    @GetMapping("/store-items/{id}")
+    public Mono<ResponseEntity<StoreItemDto>> getStoreItemById(@PathVariable String id) {
+        return catalogService.getStoreItemById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/store-items/by-reference/{referenceItemId}")
+    public Flux<StoreItemDto> getByReferenceItem(@PathVariable String referenceItemId) {
+        return catalogService.getStoreItemsByReferenceItem(referenceItemId);
+    }
+
+    @GetMapping("/store-items/by-store/{storeId}")
+    public Flux<StoreItemDto> getByStore(@PathVariable String storeId) {
+        return catalogService.getStoreItemsByStore(storeId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.cache.ReferenceDataCache;
+import com.smartbasket.backend.cache.ReferenceDataSnapshot;
+import com.smartbasket.backend.cache.SearchIndex;
+import com.smartbasket.backend.dto.ReferenceItemDto;
+import com.smartbasket.backend.dto.StoreDto;
+import com.smartbasket.backend.dto.StoreItemDto;
+import com.smartbasket.backend.mapper.ReferenceItemMapper;
+import com.smartbasket.backend.mapper.StoreMapper;
+import com.smartbasket.backend.model.ReferenceItem;
+import com.smartbasket.backend.model.Store;
+import com.smartbasket.backend.model.StoreItem;
+import com.smartbasket.backend.service.StoreItemService;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Non-blocking versions of the catalog reads (reference items, stores, store items)
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveCatalogService {
+
+    private final ReactiveReferenceItemRepository referenceItemRepository;
+    private final ReactiveStoreRepository storeRepository;
+    private final ReactiveStoreItemRepository storeItemRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReferenceItemMapper referenceItemMapper;
+    private final StoreMapper storeMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final SearchIndex searchIndex;
+
+    public Flux<ReferenceItemDto> getAllItems() {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Flux.fromIterable(snapshot.referenceItems()) : referenceItemRepository.findAll())
+                .map(referenceItemMapper::toDto);
+    }
+
+    public Mono<ReferenceItemDto> getItemById(String id) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Mono.justOrEmpty(snapshot.referenceItem(id)) : referenceItemRepository.findById(id))
+                .map(referenceItemMapper::toDto);
+    }
+
+    public Flux<ReferenceItemDto> getItemsByCategory(String categoryId) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null
+                ? Flux.fromIterable(snapshot.referenceItemsInCategory(categoryId))
+                : referenceItemRepository.findByCategoryId(categoryId))
+                .map(referenceItemMapper::toDto);
+    }
+
+    /**
+     * Served from the in-memory search index; a name regex on Mongo until it has loaded
+     */
+    public Flux<ReferenceItemDto> searchItems(String query, int limit) {
+        if (searchIndex.isReady()) {
+            return Flux.fromIterable(searchIndex.search(query, limit)).map(referenceItemMapper::toDto);
+        }
+        Query mongoQuery = Query.query(Criteria.where("name").regex(Pattern.quote(query), "i")).limit(limit);
+        return mongoTemplate.find(mongoQuery, ReferenceItem.class).map(referenceItemMapper::toDto);
+    }
+
+    public Flux<StoreDto> getAllStores() {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Flux.fromIterable(snapshot.stores()) : storeRepository.findAll())
+                .map(storeMapper::toDto);
+    }
+
+    public Flux<StoreDto> getActiveStores() {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Flux.fromIterable(snapshot.activeStores()) : storeRepository.findByActiveTrue())
+                .map(storeMapper::toDto);
+    }
+
+    public Mono<StoreDto> getStoreById(String id) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        return (snapshot != null ? Mono.justOrEmpty(snapshot.store(id)) : storeRepository.findById(id))
+                .map(storeMapper::toDto);
+    }
+
+    /**
+     * Same filters and keyset pagination as the servlet listing, without field projection
+     */
+    public Flux<StoreItemDto> getStoreItems(String storeId, String categoryId, Boolean promotion,
+                                            String afterId, Integer limit) {
+        Mono<List<Criteria>> filters = (categoryId != null ? referenceItemIdsInCategory(categoryId) : Mono.just(List.<String>of()))
+                .map(categoryItemIds -> {
+                    List<Criteria> criteria = new ArrayList<>();
+                    if (storeId != null) {
+                        criteria.add(Criteria.where("storeId").is(storeId));
+                    }
+                    if (categoryId != null) {
+                        criteria.add(Criteria.where("referenceItemId").in(categoryItemIds));
+                    }
+                    if (promotion != null) {
+                        criteria.add(promotion ? Criteria.where("isPromotion").is(true) : Criteria.where("isPromotion").ne(true));
+                    }
+                    if (afterId != null) {
+                        criteria.add(Criteria.where("_id").gt(ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId));
+                    }
+                    return criteria;
+                });
+
+        return filters.flatMapMany(criteria -> {
+            Query query = criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria));
+            query.with(Sort.by(Sort.Direction.ASC, "_id"));
+            if (limit != null) {
+                query.limit(limit);
+            }
+            return withNames(mongoTemplate.find(query, StoreItem.class));
+        });
+    }
+
+    public Mono<StoreItemDto> getStoreItemById(String id) {
+        return withNames(storeItemRepository.findById(id).flux()).next();
+    }
+
+    public Flux<StoreItemDto> getStoreItemsByStore(String storeId) {
+        return withNames(storeItemRepository.findByStoreId(storeId));
+    }
+
+    public Flux<StoreItemDto> getStoreItemsByReferenceItem(String referenceItemId) {
+        return withNames(storeItemRepository.findByReferenceItemId(referenceItemId));
+    }
+
+    /**
+     * Map store items to DTOs with store and reference item names, from the resident
+     * reference data snapshot when loaded, otherwise from both collections read concurrently
+     */
+    private Flux<StoreItemDto> withNames(Flux<StoreItem> items) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            return items.map(item -> StoreItemService.toDto(item,
+                    Objects.requireNonNullElse(snapshot.storeName(item.getStoreId()), "Unknown"),
+                    Objects.requireNonNullElse(snapshot.referenceItemName(item.getReferenceItemId()), "Unknown")));
+        }
+        Mono<Map<String, String>> storeNames = storeRepository.findAll().collectMap(Store::getId, Store::getName);
+        Mono<Map<String, String>> refItemNames = referenceItemRepository.findAll().collectMap(ReferenceItem::getId, ReferenceItem::getName);
+        return Mono.zip(storeNames, refItemNames).flatMapMany(names -> items.map(item -> StoreItemService.toDto(item,
+                names.getT1().getOrDefault(item.getStoreId(), "Unknown"),
+                names.getT2().getOrDefault(item.getReferenceItemId(), "Unknown"))));
+    }
+
+    private Mono<List<String>> referenceItemIdsInCategory(String categoryId) {
+        ReferenceDataSnapshot snapshot = referenceDataCache.snapshot();
+        if (snapshot != null) {
+            return Mono.just(snapshot.referenceItemsInCategory(categoryId).stream().map(ReferenceItem::getId).toList());
+        }
+        Query query = Query.query(Criteria.where("categoryId").is(categoryId));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, ReferenceItem.class).map(ReferenceItem::getId).collectList();
+    }
+}
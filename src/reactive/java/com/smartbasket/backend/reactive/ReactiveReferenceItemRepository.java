@@ -0,0 +1,11 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.model.ReferenceItem;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveReferenceItemRepository extends ReactiveMongoRepository<ReferenceItem, String> {
+    Flux<ReferenceItem> findByCategoryId(String categoryId);
+}
@@ -0,0 +1,21 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.model.StoreItem;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveStoreItemRepository extends ReactiveMongoRepository<StoreItem, String> {
+    Flux<StoreItem> findByReferenceItemId(String referenceItemId);
+    Flux<StoreItem> findByStoreId(String storeId);
+
+    /**
+     * Store items of the given stores for a basket, without the fields the comparison never reads
+     */
+    @Query(value = "{ 'referenceItemId': { $in: ?0 }, 'storeId': { $in: ?1 } }", fields = "{ 'images': 0, 'nameAr': 0, 'barcode': 0 }")
+    Flux<StoreItem> findForComparison(Collection<String> referenceItemIds, Collection<String> storeIds);
+}
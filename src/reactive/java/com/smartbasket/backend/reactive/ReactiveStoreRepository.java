@@ -0,0 +1,11 @@
+package com.smartbasket.backend.reactive;
+
+import com.smartbasket.backend.model.Store;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveStoreRepository extends ReactiveMongoRepository<Store, String> {
+    Flux<Store> findByActiveTrue();
+}
@@ -0,0 +1,81 @@
+package com.smartbasket.backend.cache;
+
+import com.smartbasket.backend.dto.BasketComparisonResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BasketResultCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BasketResultCache cache = new BasketResultCache(meterRegistry, 100);
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void servesCachedResultUntilAnItemIsBumped() {
+        BasketComparisonResponse first = compare("milk", "bread");
+        assertThat(compare("milk", "bread")).isSameAs(first);
+        assertThat(computations).hasValue(1);
+
+        cache.bumpItem("eggs");
+        assertThat(compare("milk", "bread")).isSameAs(first);
+
+        cache.bumpItem("bread");
+        assertThat(compare("milk", "bread")).isNotSameAs(first);
+        assertThat(computations).hasValue(2);
+        assertThat(meterRegistry.get("basket.comparison.cache.stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void bumpAllInvalidatesEveryBasket() {
+        BasketComparisonResponse milk = compare("milk");
+        BasketComparisonResponse bread = compare("bread");
+
+        cache.bumpAll();
+
+        assertThat(compare("milk")).isNotSameAs(milk);
+        assertThat(compare("bread")).isNotSameAs(bread);
+        assertThat(computations).hasValue(4);
+    }
+
+    @Test
+    void bumpDuringComputeLeavesTheEntryStale() {
+        String key = BasketResultCache.key(Map.of("milk", 1), false, null);
+        cache.get(key, List.of("milk"), () -> {
+            cache.bumpItem("milk"); // a price write racing with the comparison
+            return response();
+        });
+
+        compare("milk");
+
+        assertThat(computations).hasValue(2);
+    }
+
+    @Test
+    void keyIgnoresItemOrderButNotQuantities() {
+        Map<String, Integer> basket = Map.of("milk", 1, "bread", 2);
+        assertThat(BasketResultCache.key(basket, false, null))
+                .isEqualTo(BasketResultCache.key(Map.of("bread", 2, "milk", 1), false, null))
+                .isNotEqualTo(BasketResultCache.key(Map.of("bread", 3, "milk", 1), false, null))
+                .isNotEqualTo(BasketResultCache.key(basket, true, null))
+                .isNotEqualTo(BasketResultCache.key(basket, false, 5));
+    }
+
+    private BasketComparisonResponse compare(String... referenceItemIds) {
+        List<String> ids = List.of(referenceItemIds);
+        Map<String, Integer> quantities = new HashMap<>();
+        ids.forEach(id -> quantities.put(id, 1));
+        return cache.get(BasketResultCache.key(quantities, false, null), ids, this::response);
+    }
+
+    private BasketComparisonResponse response() {
+        computations.incrementAndGet();
+        return BasketComparisonResponse.builder().build();
+    }
+}
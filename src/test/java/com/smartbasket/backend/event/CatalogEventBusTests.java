@@ -0,0 +1,97 @@
+package com.smartbasket.backend.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogEventBusTests {
+
+    private static final int RING_SIZE = 8;
+    private static final int MAX_BATCH_SIZE = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogEventBus bus = new CatalogEventBus(meterRegistry, RING_SIZE, MAX_BATCH_SIZE);
+
+    @AfterEach
+    void stop() {
+        bus.shutdown();
+    }
+
+    @Test
+    void slowSubscriberReceivesEveryEventInOrderAcrossWraparounds() {
+        List<String> fast = Collections.synchronizedList(new ArrayList<>());
+        List<String> slow = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> slowBatchSizes = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe("fast", events -> events.forEach(event -> fast.add(event.id())));
+        bus.subscribe("slow", events -> {
+            slowBatchSizes.add(events.size());
+            sleep(1);
+            events.forEach(event -> slow.add(event.id()));
+        });
+
+        List<String> ids = IntStream.range(0, 500).mapToObj(String::valueOf).toList();
+        ids.forEach(id -> bus.publish(CatalogEvent.referenceItemDeleted(id)));
+
+        assertThat(bus.awaitDrained(Duration.ofSeconds(10))).isTrue();
+        assertThat(fast).containsExactlyElementsOf(ids);
+        assertThat(slow).containsExactlyElementsOf(ids);
+        assertThat(slowBatchSizes).allMatch(size -> size <= MAX_BATCH_SIZE);
+        // 500 events through 8 slots: the publisher must have waited on the slow subscriber
+        assertThat(meterRegistry.get("events.publish.blocked").timer().count()).isPositive();
+    }
+
+    @Test
+    void concurrentPublishersLoseAndDuplicateNothing() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe("collector", events -> events.forEach(event -> received.add(event.id())));
+
+        List<Thread> publishers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            String prefix = p + "-";
+            Thread publisher = new Thread(() -> IntStream.range(0, 250)
+                    .forEach(i -> bus.publish(CatalogEvent.referenceItemDeleted(prefix + i))));
+            publisher.start();
+            publishers.add(publisher);
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        assertThat(bus.awaitDrained(Duration.ofSeconds(10))).isTrue();
+        assertThat(received).hasSize(1000).doesNotHaveDuplicates();
+        // Each publisher's own events keep their order
+        for (int p = 0; p < 4; p++) {
+            String prefix = p + "-";
+            assertThat(received.stream().filter(id -> id.startsWith(prefix)).toList())
+                    .containsExactlyElementsOf(IntStream.range(0, 250).mapToObj(i -> prefix + i).toList());
+        }
+    }
+
+    @Test
+    void failingSubscriberDoesNotBlockPublishers() {
+        bus.subscribe("failing", events -> {
+            throw new IllegalStateException("boom");
+        });
+
+        IntStream.range(0, 100).forEach(i -> bus.publish(CatalogEvent.referenceItemDeleted(String.valueOf(i))));
+
+        assertThat(bus.awaitDrained(Duration.ofSeconds(10))).isTrue();
+        assertThat(meterRegistry.get("events.consumer.errors").counter().count()).isPositive();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
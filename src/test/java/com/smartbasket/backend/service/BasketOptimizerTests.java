@@ -0,0 +1,170 @@
+package com.smartbasket.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BasketOptimizerTests {
+
+    private static final double NOT_SOLD = Double.NaN;
+
+    @Test
+    void matchesBruteForceOnSmallBaskets() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            int itemCount = 1 + random.nextInt(7);
+            int storeCount = 1 + random.nextInt(7);
+            int maxStores = 1 + random.nextInt(3);
+            double extraStoreCost = random.nextBoolean() ? 0.0 : random.nextInt(5);
+            double[][] prices = randomPrices(random, itemCount, storeCount);
+
+            BasketOptimizer.Plan plan = new BasketOptimizer(prices, storeCount, maxStores, extraStoreCost)
+                    .solve(deadline());
+            Best best = bruteForce(prices, storeCount, maxStores, extraStoreCost);
+
+            String instance = "round " + round;
+            assertThat(plan.optimal()).as(instance).isTrue();
+            assertThat(plan.stores().length).as(instance).isLessThanOrEqualTo(maxStores);
+            assertThat(plan.missingCount()).as(instance).isEqualTo(best.missing());
+            assertThat(plan.itemsTotal() + extraStoreCost * Math.max(plan.stores().length - 1, 0))
+                    .as(instance).isCloseTo(best.total(), within(1e-6));
+            assertConsistent(plan, prices);
+        }
+    }
+
+    @Test
+    void bestSingleStoreMatchesTheOneStoreSearch() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            int itemCount = 1 + random.nextInt(8);
+            int storeCount = 1 + random.nextInt(8);
+            double[][] prices = randomPrices(random, itemCount, storeCount);
+
+            BasketOptimizer.Plan single = BasketOptimizer.bestSingleStore(prices, storeCount);
+            Best best = bruteForce(prices, storeCount, 1, 0.0);
+
+            String instance = "round " + round;
+            assertThat(single.stores()).as(instance).hasSize(1);
+            assertThat(single.missingCount()).as(instance).isEqualTo(best.missing());
+            assertThat(single.itemsTotal()).as(instance).isCloseTo(best.total(), within(1e-6));
+            assertConsistent(single, prices);
+        }
+    }
+
+    @Test
+    void coveringMoreItemsBeatsALowerTotal() {
+        double[][] prices = {
+                {1.0, 5.0},
+                {NOT_SOLD, 5.0},
+        };
+
+        BasketOptimizer.Plan plan = new BasketOptimizer(prices, 2, 1, 0.0).solve(deadline());
+
+        assertThat(plan.stores()).containsExactly(1);
+        assertThat(plan.missingCount()).isZero();
+        assertThat(BasketOptimizer.bestSingleStore(prices, 2).stores()).containsExactly(1);
+    }
+
+    @Test
+    void extraStoreCostKeepsTheBasketInOneStore() {
+        double[][] prices = {
+                {1.0, 2.0},
+                {2.0, 1.0},
+        };
+
+        assertThat(new BasketOptimizer(prices, 2, 2, 0.0).solve(deadline()).stores()).hasSize(2);
+        assertThat(new BasketOptimizer(prices, 2, 2, 1.5).solve(deadline()).stores()).hasSize(1);
+    }
+
+    @Test
+    void noStoresLeavesEverythingMissing() {
+        double[][] prices = {{}, {}};
+
+        BasketOptimizer.Plan plan = new BasketOptimizer(prices, 0, 2, 0.0).solve(deadline());
+
+        assertThat(plan.stores()).isEmpty();
+        assertThat(plan.assignment()).containsExactly(-1, -1);
+        assertThat(plan.missingCount()).isEqualTo(2);
+        assertThat(BasketOptimizer.bestSingleStore(prices, 0).missingCount()).isEqualTo(2);
+    }
+
+    private record Best(int missing, double total) {
+    }
+
+    /**
+     * Fewest missing items, then lowest items total plus extra store costs, over every store subset
+     */
+    private static Best bruteForce(double[][] prices, int storeCount, int maxStores, double extraStoreCost) {
+        Best best = new Best(prices.length, 0.0);
+        for (int subset = 1; subset < 1 << storeCount; subset++) {
+            int size = Integer.bitCount(subset);
+            if (size > maxStores) {
+                continue;
+            }
+            int missing = 0;
+            double total = extraStoreCost * (size - 1);
+            for (double[] row : prices) {
+                double min = Double.POSITIVE_INFINITY;
+                for (int s = 0; s < storeCount; s++) {
+                    if ((subset & (1 << s)) != 0 && !Double.isNaN(row[s])) {
+                        min = Math.min(min, row[s]);
+                    }
+                }
+                if (min == Double.POSITIVE_INFINITY) {
+                    missing++;
+                } else {
+                    total += min;
+                }
+            }
+            if (missing < best.missing() || (missing == best.missing() && total < best.total())) {
+                best = new Best(missing, total);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Every item is bought at the cheapest chosen store that sells it, and the totals add up
+     */
+    private static void assertConsistent(BasketOptimizer.Plan plan, double[][] prices) {
+        double itemsTotal = 0;
+        int missing = 0;
+        for (int i = 0; i < prices.length; i++) {
+            int store = plan.assignment()[i];
+            double cheapest = Double.POSITIVE_INFINITY;
+            for (int s : plan.stores()) {
+                if (!Double.isNaN(prices[i][s])) {
+                    cheapest = Math.min(cheapest, prices[i][s]);
+                }
+            }
+            if (store < 0) {
+                assertThat(cheapest).isInfinite();
+                missing++;
+            } else {
+                assertThat(plan.stores()).contains(store);
+                assertThat(prices[i][store]).isEqualTo(cheapest);
+                itemsTotal += prices[i][store];
+            }
+        }
+        assertThat(plan.missingCount()).isEqualTo(missing);
+        assertThat(plan.itemsTotal()).isCloseTo(itemsTotal, within(1e-6));
+    }
+
+    private static double[][] randomPrices(Random random, int itemCount, int storeCount) {
+        double[][] prices = new double[itemCount][storeCount];
+        for (int i = 0; i < itemCount; i++) {
+            for (int s = 0; s < storeCount; s++) {
+                prices[i][s] = random.nextInt(5) == 0 ? NOT_SOLD : 1 + random.nextInt(20) / 4.0;
+            }
+        }
+        return prices;
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    }
+}
@@ -0,0 +1,96 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.cache.BarcodeIndex;
+import com.smartbasket.backend.cache.BasketResultCache;
+import com.smartbasket.backend.cache.PriceMatrix;
+import com.smartbasket.backend.cache.StoreItemVersion;
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest.PriceEntry;
+import com.smartbasket.backend.event.CatalogEventBus;
+import com.smartbasket.backend.model.StoreItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceBatchWriterTests {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final PriceMatrix priceMatrix = mock(PriceMatrix.class);
+    private final BarcodeIndex barcodeIndex = mock(BarcodeIndex.class);
+    private final BasketResultCache basketResultCache = mock(BasketResultCache.class);
+    private final PriceHistoryService priceHistoryService = mock(PriceHistoryService.class);
+    private final PriceBatchWriter writer = new PriceBatchWriter(mongoTemplate, priceHistoryService,
+            priceMatrix, barcodeIndex, basketResultCache, mock(CatalogEventBus.class), mock(StoreItemVersion.class));
+
+    private final StoreItem milk = StoreItem.builder()
+            .id("store-item-1")
+            .storeId("store-1")
+            .referenceItemId("milk")
+            .discountPrice(1.0)
+            .build();
+
+    @BeforeEach
+    void storeItems() {
+        when(mongoTemplate.find(any(Query.class), eq(StoreItem.class))).thenReturn(List.of(milk));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoreItem.class)).thenReturn(bulk);
+    }
+
+    @Test
+    void bumpsCachedComparisonsOnlyAfterTheResidentCachesArePatched() {
+        List<PriceBatchWriter.Outcome> outcomes = writer.write(List.of(entry(2.0)), false);
+
+        assertThat(outcomes).allMatch(PriceBatchWriter.Outcome::success);
+        InOrder order = inOrder(priceMatrix, barcodeIndex, basketResultCache);
+        order.verify(priceMatrix).put(milk);
+        order.verify(barcodeIndex).put(milk);
+        order.verify(basketResultCache).bumpItem("milk");
+        assertThat(milk.getDiscountPrice()).isEqualTo(2.0);
+    }
+
+    @Test
+    void failedWriteStillBumpsButLeavesTheCachesAlone() {
+        when(bulk.execute()).thenThrow(new IllegalStateException("connection reset"));
+        // The read-back after the unknown outcome does not find the write
+        when(mongoTemplate.find(any(Query.class), eq(StoreItem.class))).thenReturn(List.of(milk), List.of());
+
+        List<PriceBatchWriter.Outcome> outcomes = writer.write(List.of(entry(2.0)), false);
+
+        assertThat(outcomes).noneMatch(PriceBatchWriter.Outcome::success);
+        verify(basketResultCache).bumpItem("milk");
+        verify(priceMatrix, never()).put(any());
+        verify(barcodeIndex, never()).put(any());
+    }
+
+    @Test
+    void cachePatchFailureAfterTheWriteIsReportedNotThrown() {
+        doThrow(new IllegalStateException("index rebuilding")).when(barcodeIndex).put(milk);
+
+        List<PriceBatchWriter.Outcome> outcomes = writer.write(List.of(entry(2.0)), false);
+
+        // Thrown, the caller would retry and write the price and its history a second time
+        assertThat(outcomes).singleElement()
+                .satisfies(outcome -> assertThat(outcome.error()).startsWith("Price applied but caches not patched"));
+        verify(priceHistoryService).record(argThat(rows -> rows.size() == 1));
+        verify(basketResultCache).bumpItem("milk");
+    }
+
+    private static PriceEntry entry(double price) {
+        return PriceEntry.builder().storeItemId("store-item-1").price(price).build();
+    }
+}
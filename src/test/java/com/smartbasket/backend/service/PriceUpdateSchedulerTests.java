@@ -0,0 +1,94 @@
+package com.smartbasket.backend.service;
+
+import com.smartbasket.backend.dto.BatchPriceUpdateRequest.PriceEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriceUpdateSchedulerTests {
+
+    private final PriceBatchWriter writer = mock(PriceBatchWriter.class);
+    // Every entry the writer was handed, in the order the lanes wrote them
+    private final List<PriceEntry> written = new ArrayList<>();
+    private PriceUpdateScheduler scheduler;
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void writesEachItemInSubmissionOrder() {
+        when(writer.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<PriceEntry> entries = invocation.getArgument(0);
+            Thread.sleep(1); // let the next entries queue up into micro-batches
+            synchronized (written) {
+                written.addAll(entries);
+            }
+            return entries.stream().map(PriceUpdateSchedulerTests::applied).toList();
+        });
+        scheduler = start(4);
+
+        List<PriceEntry> entries = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            for (int item = 0; item < 10; item++) {
+                entries.add(entry("item-" + item, round));
+            }
+        }
+        List<PriceBatchWriter.Outcome> outcomes = scheduler.submitAll(entries, false);
+
+        assertThat(outcomes).allMatch(PriceBatchWriter.Outcome::success);
+        assertThat(outcomes).extracting(PriceBatchWriter.Outcome::storeItemId)
+                .containsExactlyElementsOf(entries.stream().map(PriceEntry::getStoreItemId).toList());
+        Map<String, List<Double>> pricesByItem = new HashMap<>();
+        written.forEach(entry -> pricesByItem.computeIfAbsent(entry.getStoreItemId(), id -> new ArrayList<>())
+                .add(entry.getPrice()));
+        assertThat(pricesByItem).hasSize(10);
+        pricesByItem.values().forEach(prices -> assertThat(prices).isSortedAccordingTo(Double::compare).hasSize(200));
+    }
+
+    @Test
+    void failedMicroBatchOnlyFailsTheBadEntry() {
+        when(writer.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<PriceEntry> entries = invocation.getArgument(0);
+            if (entries.stream().anyMatch(entry -> entry.getStoreItemId().equals("bad"))) {
+                throw new IllegalStateException("bulk write failed");
+            }
+            return entries.stream().map(PriceUpdateSchedulerTests::applied).toList();
+        });
+        scheduler = start(1);
+
+        List<PriceBatchWriter.Outcome> outcomes = scheduler.submitAll(
+                List.of(entry("a", 1), entry("bad", 1), entry("b", 1)), false);
+
+        assertThat(outcomes).extracting(PriceBatchWriter.Outcome::success).containsExactly(true, false, true);
+        assertThat(outcomes.get(1).error()).isEqualTo("bulk write failed");
+    }
+
+    private PriceUpdateScheduler start(int lanes) {
+        PriceUpdateScheduler started = new PriceUpdateScheduler(writer, new SimpleMeterRegistry(), lanes, 50, 100);
+        started.start();
+        return started;
+    }
+
+    private static PriceEntry entry(String storeItemId, double price) {
+        return PriceEntry.builder().storeItemId(storeItemId).price(price).build();
+    }
+
+    private static PriceBatchWriter.Outcome applied(PriceEntry entry) {
+        return new PriceBatchWriter.Outcome(entry.getStoreItemId(), null, false, null);
+    }
+}